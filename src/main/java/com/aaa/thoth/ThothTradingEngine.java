@@ -1,6 +1,7 @@
 package com.aaa.thoth;
 
 import com.aaa.thoth.core.Order;
+import com.aaa.thoth.core.PriceScale;
 import com.aaa.thoth.core.enums.OrderSide;
 import com.aaa.thoth.core.enums.OrderType;
 import com.aaa.thoth.engine.OrderBook;
@@ -139,16 +140,17 @@ public class ThothTradingEngine {
 
         OrderBook.BookSnapshot snapshot = tradingEngine.getOrderBookSnapshot(symbol);
         if (snapshot != null) {
+            PriceScale scale = PriceScale.forSymbol(symbol);
             System.out.println("\nLibro de Órdenes para " + symbol);
             System.out.println("Compras (Bids):");
             snapshot.bids().forEach(level ->
-                    System.out.printf("  Precio: %.2f, Cantidad: %d, Órdenes: %d%n",
-                            level.price(), level.quantity(), level.orderCount()));
+                    System.out.printf("  Precio: %s, Cantidad: %d, Órdenes: %d%n",
+                            scale.format(level.price()), level.quantity(), level.orderCount()));
 
             System.out.println("Ventas (Asks):");
             snapshot.asks().forEach(level ->
-                    System.out.printf("  Precio: %.2f, Cantidad: %d, Órdenes: %d%n",
-                            level.price(), level.quantity(), level.orderCount()));
+                    System.out.printf("  Precio: %s, Cantidad: %d, Órdenes: %d%n",
+                            scale.format(level.price()), level.quantity(), level.orderCount()));
         } else {
             System.out.println("No hay libro de órdenes para " + symbol);
         }
@@ -160,12 +162,13 @@ public class ThothTradingEngine {
 
         OrderBook.BookStatistics stats = tradingEngine.getBookStatistics(symbol);
         if (stats != null) {
+            PriceScale scale = PriceScale.forSymbol(symbol);
             System.out.println("\nEstadísticas para " + symbol);
-            System.out.printf("Mejor compra: %.2f%n", stats.bestBid());
-            System.out.printf("Mejor venta: %.2f%n", stats.bestAsk());
-            System.out.printf("Spread: %.2f%n", stats.spread());
-            System.out.printf("Precio medio: %.2f%n", stats.midPrice());
-            System.out.printf("Último precio: %.2f%n", stats.lastPrice());
+            System.out.printf("Mejor compra: %s%n", scale.format(stats.bestBid()));
+            System.out.printf("Mejor venta: %s%n", scale.format(stats.bestAsk()));
+            System.out.printf("Spread: %s%n", scale.format(stats.spread()));
+            System.out.printf("Precio medio: %.4f%n", stats.midPrice() / scale.multiplier());
+            System.out.printf("Último precio: %s%n", scale.format(stats.lastPrice()));
             System.out.printf("Última cantidad: %d%n", stats.lastQuantity());
             System.out.printf("Niveles de compra: %d%n", stats.bidLevels());
             System.out.printf("Niveles de venta: %d%n", stats.askLevels());
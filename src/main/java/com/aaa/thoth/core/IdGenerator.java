@@ -0,0 +1,8 @@
+package com.aaa.thoth.core;
+
+// Fuente de IDs de 64 bits; las implementaciones deben ser seguras entre hilos,
+// monótonas y no crear objetos por ID
+@FunctionalInterface
+public interface IdGenerator {
+    long nextId();
+}
@@ -0,0 +1,20 @@
+package com.aaa.thoth.core;
+
+// Generador por defecto del proceso, usado por las factories de Order y Trade
+public final class IdGenerators {
+    private static volatile IdGenerator defaultGenerator = new SequenceIdGenerator(0);
+
+    private IdGenerators() {
+    }
+
+    public static IdGenerator defaultGenerator() {
+        return defaultGenerator;
+    }
+
+    public static void setDefault(IdGenerator generator) {
+        if (generator == null) {
+            throw new IllegalArgumentException("ID generator cannot be null");
+        }
+        defaultGenerator = generator;
+    }
+}
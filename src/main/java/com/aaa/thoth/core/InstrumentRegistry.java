@@ -0,0 +1,95 @@
+package com.aaa.thoth.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Registro de instrumentos: asigna a cada símbolo un ID entero denso al entrar al
+// sistema, para que libros, validación y riesgo indexen arreglos en vez de hashear
+// strings en cada etapa
+public final class InstrumentRegistry {
+    public static final int UNKNOWN_SYMBOL = -1;
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final InstrumentRegistry GLOBAL = new InstrumentRegistry(DEFAULT_CAPACITY);
+
+    public record Instrument(int id, String symbol, PriceScale scale) {
+    }
+
+    private final ConcurrentHashMap<String, Instrument> bySymbol;
+    private final AtomicReferenceArray<Instrument> byId;
+    private int size;
+
+    public InstrumentRegistry(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.bySymbol = new ConcurrentHashMap<>();
+        this.byId = new AtomicReferenceArray<>(capacity);
+    }
+
+    public static InstrumentRegistry global() {
+        return GLOBAL;
+    }
+
+    public int register(String symbol) {
+        Instrument instrument = bySymbol.get(symbol);
+        return instrument != null ? instrument.id() : register(symbol, PriceScale.DEFAULT);
+    }
+
+    // Registra el símbolo o actualiza su escala conservando el ID
+    public synchronized int register(String symbol, PriceScale scale) {
+        if (symbol == null || symbol.isBlank()) {
+            throw new IllegalArgumentException("Symbol cannot be null or blank");
+        }
+        Instrument existing = bySymbol.get(symbol);
+        int id;
+        if (existing != null) {
+            id = existing.id();
+            symbol = existing.symbol();
+        } else {
+            if (size == byId.length()) {
+                throw new IllegalStateException("Instrument registry is full: " + size);
+            }
+            id = size++;
+        }
+        Instrument instrument = new Instrument(id, symbol, scale);
+        byId.set(id, instrument);
+        bySymbol.put(symbol, instrument);
+        return id;
+    }
+
+    public int idOf(String symbol) {
+        if (symbol == null) {
+            return UNKNOWN_SYMBOL;
+        }
+        Instrument instrument = bySymbol.get(symbol);
+        return instrument != null ? instrument.id() : UNKNOWN_SYMBOL;
+    }
+
+    public Instrument instrument(int symbolId) {
+        return symbolId >= 0 && symbolId < byId.length() ? byId.get(symbolId) : null;
+    }
+
+    public String symbolOf(int symbolId) {
+        Instrument instrument = instrument(symbolId);
+        return instrument != null ? instrument.symbol() : null;
+    }
+
+    public PriceScale scaleOf(int symbolId) {
+        Instrument instrument = instrument(symbolId);
+        return instrument != null ? instrument.scale() : PriceScale.DEFAULT;
+    }
+
+    public PriceScale scaleOf(String symbol) {
+        Instrument instrument = symbol != null ? bySymbol.get(symbol) : null;
+        return instrument != null ? instrument.scale() : PriceScale.DEFAULT;
+    }
+
+    public int capacity() {
+        return byId.length();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
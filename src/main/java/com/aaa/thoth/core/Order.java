@@ -4,18 +4,18 @@ import com.aaa.thoth.core.enums.OrderSide;
 import com.aaa.thoth.core.enums.OrderStatus;
 import com.aaa.thoth.core.enums.OrderType;
 import java.time.Instant;
-import java.util.UUID;
 
 public record Order(
-        String orderId,
+        long orderId,           // Asignado por el motor; 0 mientras no fue asignado
         String symbol,
         OrderType type,
         OrderSide side,
-        double price,
-        double stopPrice,
+        long price,         // Precio en ticks
+        long stopPrice,     // Precio de activación en ticks
         long quantity,
         long filledQuantity,
         long displayQuantity,
+        long minQuantity,       // Cantidad mínima a ejecutar de inmediato; 0 = sin mínimo
         String traderId,
         OrderStatus status,
         String exchangeId,
@@ -24,7 +24,7 @@ public record Order(
         Instant expiresAt,
         int priority,
         String clientOrderId
-) {
+) implements OrderView {
     // Constructor compacto con validación
     public Order {
         // Validar campos obligatorios
@@ -55,10 +55,17 @@ public record Order(
         if (displayQuantity > quantity) {
             throw new IllegalArgumentException("Display quantity cannot be greater than total quantity");
         }
+        if (minQuantity < 0 || minQuantity > quantity) {
+            throw new IllegalArgumentException("Minimum quantity must be between 0 and total quantity");
+        }
+
+        if (orderId < 0) {
+            throw new IllegalArgumentException("Order ID cannot be negative");
+        }
 
         // Asignar valores por defecto si son null
-        if (orderId == null) {
-            orderId = UUID.randomUUID().toString();
+        if (clientOrderId == null) {
+            clientOrderId = newClientOrderId();
         }
         if (status == null) {
             status = OrderStatus.NEW;
@@ -74,15 +81,16 @@ public record Order(
     // Factory methods
     public static Order limitOrder(String symbol, OrderSide side, double price, long quantity, String traderId) {
         return new Order(
-                UUID.randomUUID().toString(), // orderId
+                0L,             // orderId, lo asigna el motor
                 symbol,
                 OrderType.LIMIT,
                 side,
-                price,
-                0.0,            // stopPrice
+                PriceScale.forSymbol(symbol).toTicks(price),
+                0L,             // stopPrice
                 quantity,
                 0L,             // filledQuantity
                 quantity,       // displayQuantity
+                0L,             // minQuantity
                 traderId,
                 OrderStatus.NEW,
                 null,           // exchangeId
@@ -90,21 +98,22 @@ public record Order(
                 Instant.now(),  // updatedAt
                 null,           // expiresAt
                 0,             // priority
-                null           // clientOrderId
+                newClientOrderId() // clientOrderId
         );
     }
 
     public static Order marketOrder(String symbol, OrderSide side, long quantity, String traderId) {
         return new Order(
-                UUID.randomUUID().toString(),
+                0L,
                 symbol,
                 OrderType.MARKET,
                 side,
-                0.0,    // No price for market orders
-                0.0,    // stopPrice
+                0L,     // No price for market orders
+                0L,     // stopPrice
                 quantity,
                 0L,     // filledQuantity
                 quantity,
+                0L,     // minQuantity
                 traderId,
                 OrderStatus.NEW,
                 null,
@@ -112,10 +121,25 @@ public record Order(
                 Instant.now(),
                 null,
                 0,
-                null
+                newClientOrderId()
         );
     }
 
+    // ID de cliente por defecto, sin pasar por SecureRandom
+    private static String newClientOrderId() {
+        return Long.toString(IdGenerators.defaultGenerator().nextId());
+    }
+
+    @Override
+    public long createdAtMillis() {
+        return createdAt.toEpochMilli();
+    }
+
+    @Override
+    public long expiresAtMillis() {
+        return expiresAt != null ? expiresAt.toEpochMilli() : 0L;
+    }
+
     // Métodos de utilidad
     public boolean isComplete() {
         return filledQuantity == quantity;
@@ -129,11 +153,42 @@ public record Order(
         return !status.isFinal();
     }
 
+    public PriceScale priceScale() {
+        return PriceScale.forSymbol(symbol);
+    }
+
+    // Precios decimales solo para presentación y cálculos de valor
+    public double decimalPrice() {
+        return priceScale().toPrice(price);
+    }
+
+    public double decimalStopPrice() {
+        return priceScale().toPrice(stopPrice);
+    }
+
     // Método para crear una nueva orden con estado actualizado
     public Order withStatus(OrderStatus newStatus) {
         return new Order(
                 orderId, symbol, type, side, price, stopPrice, quantity, filledQuantity,
-                displayQuantity, traderId, newStatus, exchangeId, createdAt, Instant.now(),
+                displayQuantity, minQuantity, traderId, newStatus, exchangeId, createdAt, Instant.now(),
+                expiresAt, priority, clientOrderId
+        );
+    }
+
+    // Método para asignar el ID interno del motor
+    public Order withOrderId(long newOrderId) {
+        return new Order(
+                newOrderId, symbol, type, side, price, stopPrice, quantity, filledQuantity,
+                displayQuantity, minQuantity, traderId, status, exchangeId, createdAt, updatedAt,
+                expiresAt, priority, clientOrderId
+        );
+    }
+
+    // Exige ejecutar al menos minQuantity de inmediato o nada
+    public Order withMinQuantity(long newMinQuantity) {
+        return new Order(
+                orderId, symbol, type, side, price, stopPrice, quantity, filledQuantity,
+                displayQuantity, newMinQuantity, traderId, status, exchangeId, createdAt, updatedAt,
                 expiresAt, priority, clientOrderId
         );
     }
@@ -142,7 +197,7 @@ public record Order(
     public Order withFilledQuantity(long newFilledQuantity) {
         return new Order(
                 orderId, symbol, type, side, price, stopPrice, quantity, newFilledQuantity,
-                displayQuantity, traderId, status, exchangeId, createdAt, Instant.now(),
+                displayQuantity, minQuantity, traderId, status, exchangeId, createdAt, Instant.now(),
                 expiresAt, priority, clientOrderId
         );
     }
@@ -150,8 +205,8 @@ public record Order(
     @Override
     public String toString() {
         return String.format(
-                "Order{id=%s, symbol=%s, type=%s, side=%s, price=%.2f, qty=%d/%d, status=%s}",
-                orderId, symbol, type, side, price, filledQuantity, quantity, status
+                "Order{id=%d, clientId=%s, symbol=%s, type=%s, side=%s, price=%s, qty=%d/%d, status=%s}",
+                orderId, clientOrderId, symbol, type, side, priceScale().format(price), filledQuantity, quantity, status
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.aaa.thoth.core;
+
+import com.aaa.thoth.core.enums.OrderSide;
+import com.aaa.thoth.core.enums.OrderStatus;
+import com.aaa.thoth.core.enums.OrderType;
+
+// Vista de solo lectura de los atributos de una orden. La implementan el record
+// Order y el slot plano del ring del motor, de modo que validación, riesgo y el
+// libro leen la orden sin importar dónde vive. Los tiempos van en epoch millis
+public interface OrderView {
+    long orderId();
+
+    String clientOrderId();
+
+    String symbol();
+
+    OrderType type();
+
+    OrderSide side();
+
+    long price();           // Ticks
+
+    long stopPrice();       // Ticks
+
+    long quantity();
+
+    long filledQuantity();
+
+    long displayQuantity();
+
+    long minQuantity();
+
+    String traderId();
+
+    String exchangeId();
+
+    OrderStatus status();
+
+    int priority();
+
+    long createdAtMillis();
+
+    long expiresAtMillis(); // 0 = sin vencimiento
+}
@@ -0,0 +1,60 @@
+package com.aaa.thoth.core;
+
+import java.math.BigDecimal;
+
+// Escala de precios en punto fijo: los precios viajan como ticks (long)
+public record PriceScale(int decimals, long multiplier) {
+    private static final int MAX_DECIMALS = 9;
+    private static final double TICK_TOLERANCE = 1e-6;
+
+    public static final PriceScale DEFAULT = of(2);
+
+    public PriceScale {
+        if (decimals < 0 || decimals > MAX_DECIMALS) {
+            throw new IllegalArgumentException("Decimals must be between 0 and " + MAX_DECIMALS);
+        }
+        if (multiplier != pow10(decimals)) {
+            throw new IllegalArgumentException("Multiplier must be 10^" + decimals);
+        }
+    }
+
+    public static PriceScale of(int decimals) {
+        return new PriceScale(decimals, pow10(decimals));
+    }
+
+    // Las escalas por instrumento viven en el registro global de instrumentos
+    public static void register(String symbol, int decimals) {
+        InstrumentRegistry.global().register(symbol, of(decimals));
+    }
+
+    public static PriceScale forSymbol(String symbol) {
+        return InstrumentRegistry.global().scaleOf(symbol);
+    }
+
+    // Convierte un precio decimal a ticks; rechaza precios fuera de la grilla
+    public long toTicks(double price) {
+        double scaled = price * multiplier;
+        long ticks = Math.round(scaled);
+        if (Math.abs(scaled - ticks) > Math.max(TICK_TOLERANCE, Math.ulp(scaled) * 4)) {
+            throw new IllegalArgumentException(
+                    "Price " + price + " is not a multiple of tick size " + format(1));
+        }
+        return ticks;
+    }
+
+    public double toPrice(long ticks) {
+        return (double) ticks / multiplier;
+    }
+
+    public String format(long ticks) {
+        return BigDecimal.valueOf(ticks, decimals).toPlainString();
+    }
+
+    private static long pow10(int decimals) {
+        long value = 1;
+        for (int i = 0; i < decimals; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+}
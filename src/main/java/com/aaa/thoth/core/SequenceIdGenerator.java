@@ -0,0 +1,62 @@
+package com.aaa.thoth.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// IDs tipo snowflake: [41 bits ms desde la época][10 bits nodo][12 bits secuencia].
+// El reloj se lee una sola vez al construir; después la secuencia avanza y al
+// desbordar toma prestado el milisegundo siguiente. Con el mismo nodo y la misma
+// marca de inicio, la serie de IDs es idéntica (replay determinista).
+public final class SequenceIdGenerator implements IdGenerator {
+    // 2024-01-01T00:00:00Z
+    public static final long CUSTOM_EPOCH_MILLIS = 1_704_067_200_000L;
+    public static final int MAX_NODE_ID = (1 << 10) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final int nodeId;
+    private final long startMillis;
+    private final long nodeBits;
+    // (ms desde la época << SEQUENCE_BITS) | secuencia
+    private final AtomicLong state;
+
+    public SequenceIdGenerator(int nodeId) {
+        this(nodeId, System.currentTimeMillis());
+    }
+
+    public SequenceIdGenerator(int nodeId, long startMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID);
+        }
+        if (startMillis < CUSTOM_EPOCH_MILLIS) {
+            throw new IllegalArgumentException("Start time cannot be before the ID epoch");
+        }
+        this.nodeId = nodeId;
+        this.startMillis = startMillis;
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.state = new AtomicLong((startMillis - CUSTOM_EPOCH_MILLIS) << SEQUENCE_BITS);
+    }
+
+    @Override
+    public long nextId() {
+        long next = state.incrementAndGet();
+        return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+    }
+
+    public int nodeId() {
+        return nodeId;
+    }
+
+    public long startMillis() {
+        return startMillis;
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + CUSTOM_EPOCH_MILLIS;
+    }
+
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+}
@@ -2,14 +2,13 @@ package com.aaa.thoth.core;
 
 import com.aaa.thoth.core.enums.OrderSide;
 import java.time.Instant;
-import java.util.UUID;
 
 public record Trade(
-        String tradeId,
+        long tradeId,
         String symbol,
         Order makerOrder,      // Orden que ya estaba en el libro
         Order takerOrder,      // Orden que ejecutó contra el libro
-        double price,
+        long price,            // Precio en ticks
         long quantity,
         Instant timestamp,
         String exchangeId,
@@ -18,8 +17,8 @@ public record Trade(
     // Constructor compacto con validación
     public Trade {
         // Validar campos obligatorios
-        if (tradeId == null || tradeId.isBlank()) {
-            tradeId = UUID.randomUUID().toString();
+        if (tradeId <= 0) {
+            tradeId = IdGenerators.defaultGenerator().nextId();
         }
         if (symbol == null || symbol.isBlank()) {
             throw new IllegalArgumentException("Symbol cannot be null or blank");
@@ -38,7 +37,10 @@ public record Trade(
         }
 
         // Validar coherencia entre órdenes
-        if (!makerOrder.symbol().equals(takerOrder.symbol())) {
+        // Los símbolos del libro son las instancias canónicas del registro de instrumentos,
+        // así que la comparación casi siempre se resuelve por referencia
+        if (makerOrder.symbol() != takerOrder.symbol()
+                && !makerOrder.symbol().equals(takerOrder.symbol())) {
             throw new IllegalArgumentException("Orders must be for the same symbol");
         }
         if (!symbol.equals(makerOrder.symbol())) {
@@ -61,12 +63,12 @@ public record Trade(
     }
 
     // Factory method principal
-    public static Trade createTrade(Order makerOrder, Order takerOrder, double price, long quantity) {
+    public static Trade createTrade(Order makerOrder, Order takerOrder, long price, long quantity) {
         // Determinar si el maker es comprador
         boolean isBuyerMaker = makerOrder.side() == OrderSide.BUY;
 
         return new Trade(
-                UUID.randomUUID().toString(),
+                IdGenerators.defaultGenerator().nextId(),
                 makerOrder.symbol(),
                 makerOrder,
                 takerOrder,
@@ -80,9 +82,17 @@ public record Trade(
 
     // Métodos de utilidad
     public double getTotal() {
+        return decimalPrice() * quantity;
+    }
+
+    public long getNotionalTicks() {
         return price * quantity;
     }
 
+    public double decimalPrice() {
+        return PriceScale.forSymbol(symbol).toPrice(price);
+    }
+
     public Order getBuyOrder() {
         return isBuyerMaker ? makerOrder : takerOrder;
     }
@@ -117,10 +127,10 @@ public record Trade(
     @Override
     public String toString() {
         return String.format(
-                "Trade{id=%s, symbol=%s, price=%.2f, qty=%d, maker=%s, taker=%s, timestamp=%s}",
+                "Trade{id=%d, symbol=%s, price=%s, qty=%d, maker=%d, taker=%d, timestamp=%s}",
                 tradeId,
                 symbol,
-                price,
+                PriceScale.forSymbol(symbol).format(price),
                 quantity,
                 makerOrder.orderId(),
                 takerOrder.orderId(),
@@ -133,11 +143,11 @@ public record Trade(
         return !isBuyerMaker;
     }
 
-    public String getBuyOrderId() {
+    public long getBuyOrderId() {
         return getBuyOrder().orderId();
     }
 
-    public String getSellOrderId() {
+    public long getSellOrderId() {
         return getSellOrder().orderId();
     }
 
@@ -150,7 +160,7 @@ public record Trade(
     }
 
     // Métodos para análisis
-    public double getPrice() {
+    public long getPrice() {
         return price;
     }
 
@@ -0,0 +1,51 @@
+package com.aaa.thoth.engine;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Control de admisión de trySubmit: umbral de ocupación del ring y cuota de órdenes
+// en vuelo por trader. Una ráfaga de un cliente se rechaza antes de llenar el ring
+final class AdmissionControl {
+    private final long busyThreshold;   // Slots ocupados a partir de los cuales se rechaza
+    private final int maxPerTrader;
+    // Órdenes admitidas aún no procesadas por su matcher; null sin cuota por trader
+    private final ConcurrentHashMap<String, AtomicInteger> inFlight;
+
+    AdmissionControl(int ringSize, double fillRatio, double traderShare) {
+        this.busyThreshold = (long) Math.ceil(ringSize * fillRatio);
+        this.maxPerTrader = (int) Math.max(1, Math.floor(ringSize * traderShare));
+        this.inFlight = traderShare < 1.0 ? new ConcurrentHashMap<>() : null;
+    }
+
+    boolean isBusy(long used) {
+        return used >= busyThreshold;
+    }
+
+    // Reserva un lugar en la cuota del trader; false si ya la agotó
+    boolean acquire(String traderId) {
+        if (inFlight == null || traderId == null) {
+            return true;
+        }
+        AtomicInteger count = inFlight.computeIfAbsent(traderId, id -> new AtomicInteger());
+        if (count.incrementAndGet() > maxPerTrader) {
+            count.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    void release(String traderId) {
+        if (inFlight == null || traderId == null) {
+            return;
+        }
+        AtomicInteger count = inFlight.get(traderId);
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    int inFlight(String traderId) {
+        AtomicInteger count = inFlight != null ? inFlight.get(traderId) : null;
+        return count != null ? count.get() : 0;
+    }
+}
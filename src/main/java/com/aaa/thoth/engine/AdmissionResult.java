@@ -0,0 +1,10 @@
+package com.aaa.thoth.engine;
+
+// Respuesta inmediata de TradingEngine.trySubmit; solo ACCEPTED entra al ring
+public enum AdmissionResult {
+    ACCEPTED,           // Publicada; el resultado llega por los reportes de la sesión
+    ENGINE_STOPPED,     // El motor no está corriendo
+    RING_BUSY,          // Ocupación del ring por encima del umbral configurado
+    RING_FULL,          // Sin slots libres en el ring
+    TRADER_LIMIT        // El trader superó su cuota de órdenes en vuelo
+}
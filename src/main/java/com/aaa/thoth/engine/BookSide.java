@@ -0,0 +1,30 @@
+package com.aaa.thoth.engine;
+
+import java.util.function.Predicate;
+
+// Almacenamiento de niveles de precio de un lado del libro (bids o asks)
+interface BookSide {
+
+    // Mejor nivel del lado, null si está vacío
+    OrderList best();
+
+    OrderList get(long price);
+
+    OrderList getOrCreate(long price);
+
+    void removeLevel(OrderList level);
+
+    boolean isEmpty();
+
+    int levelCount();
+
+    // Recorre los niveles del mejor al peor; el visitor devuelve false para cortar
+    void forEachLevel(Predicate<OrderList> visitor);
+
+    // Cantidad ejecutable en los niveles con precio igual o mejor que limitPrice.
+    // Puede dejar de sumar en cuanto alcanza target
+    long availableQuantity(long limitPrice, long target);
+
+    // true si el precio a es mejor que b para este lado
+    boolean isBetter(long a, long b);
+}
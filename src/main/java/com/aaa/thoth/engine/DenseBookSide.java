@@ -0,0 +1,233 @@
+package com.aaa.thoth.engine;
+
+import java.util.ArrayList;
+import java.util.function.Predicate;
+
+// Lado del libro sobre un arreglo indexado por tick alrededor del touch.
+// Los precios dentro de la ventana viven en el arreglo y el mejor nivel se sigue
+// con un cursor; los precios lejanos caen en un skip list de respaldo.
+// Invariante: un precio dentro de la ventana nunca vive en el skip list, y si el
+// arreglo tiene niveles el skip list no contiene precios mejores.
+class DenseBookSide implements BookSide {
+    static final int DEFAULT_LADDER_TICKS = 1024;
+
+    private final boolean isBid;
+    private final OrderList[] ladder;
+    private final SkipListBookSide overflow;
+    // Cantidad ejecutable por posición del arreglo
+    private final QuantityTree depth;
+    private final ArrayList<OrderList> migration = new ArrayList<>();
+
+    private long basePrice;     // Precio del índice 0
+    private boolean centred;
+    private int bestIndex = -1; // Cursor al mejor nivel del arreglo
+    private int ladderLevels;
+
+    DenseBookSide(boolean isBid) {
+        this(isBid, DEFAULT_LADDER_TICKS);
+    }
+
+    DenseBookSide(boolean isBid, int ladderTicks) {
+        if (ladderTicks <= 0) {
+            throw new IllegalArgumentException("Ladder size must be positive");
+        }
+        this.isBid = isBid;
+        this.ladder = new OrderList[ladderTicks];
+        this.overflow = new SkipListBookSide(isBid);
+        this.depth = new QuantityTree(ladderTicks);
+    }
+
+    @Override
+    public OrderList best() {
+        return ladderLevels > 0 ? ladder[bestIndex] : overflow.best();
+    }
+
+    @Override
+    public OrderList get(long price) {
+        int index = indexOf(price);
+        return index >= 0 ? ladder[index] : overflow.get(price);
+    }
+
+    @Override
+    public OrderList getOrCreate(long price) {
+        int index = indexOf(price);
+        if (index < 0) {
+            if (ladderLevels > 0 && !isBetter(price, ladder[bestIndex].price)) {
+                // Lejos del touch: va al skip list de respaldo
+                return overflow.getOrCreate(price);
+            }
+            // Nuevo touch fuera de la ventana (o arreglo vacío): recentrar
+            recentre(price);
+            index = indexOf(price);
+        }
+
+        OrderList level = ladder[index];
+        if (level == null) {
+            level = new OrderList(price);
+            place(index, level);
+        }
+        return level;
+    }
+
+    @Override
+    public void removeLevel(OrderList level) {
+        int index = indexOf(level.price);
+        if (index < 0 || ladder[index] != level) {
+            overflow.removeLevel(level);
+            return;
+        }
+
+        ladder[index] = null;
+        detach(level);
+        ladderLevels--;
+        if (ladderLevels == 0) {
+            bestIndex = -1;
+            if (!overflow.isEmpty()) {
+                recentre(overflow.best().price);
+            }
+        } else if (index == bestIndex) {
+            advanceCursor();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ladderLevels == 0 && overflow.isEmpty();
+    }
+
+    @Override
+    public int levelCount() {
+        return ladderLevels + overflow.levelCount();
+    }
+
+    @Override
+    public void forEachLevel(Predicate<OrderList> visitor) {
+        if (!centred) {
+            overflow.forEachLevel(visitor);
+            return;
+        }
+
+        long windowEnd = basePrice + ladder.length;
+        if (isBid) {
+            if (!overflow.forEachLevelBetween(windowEnd, Long.MAX_VALUE, visitor)) return;
+            for (int i = ladder.length - 1; i >= 0; i--) {
+                if (ladder[i] != null && !visitor.test(ladder[i])) return;
+            }
+            overflow.forEachLevelBetween(Long.MIN_VALUE, basePrice, visitor);
+        } else {
+            if (!overflow.forEachLevelBetween(Long.MIN_VALUE, basePrice, visitor)) return;
+            for (int i = 0; i < ladder.length; i++) {
+                if (ladder[i] != null && !visitor.test(ladder[i])) return;
+            }
+            overflow.forEachLevelBetween(windowEnd, Long.MAX_VALUE, visitor);
+        }
+    }
+
+    // La ventana se resuelve con el árbol de Fenwick; solo los niveles del skip list
+    // de respaldo se recorren, y siempre cortando al alcanzar target
+    @Override
+    public long availableQuantity(long limitPrice, long target) {
+        if (!centred) {
+            return overflow.availableQuantity(limitPrice, target);
+        }
+
+        long windowEnd = basePrice + ladder.length;
+        long total;
+        if (isBid) {
+            total = overflow.availableQuantityBetween(Math.max(limitPrice, windowEnd), Long.MAX_VALUE, target);
+            if (total >= target || limitPrice >= windowEnd) {
+                return total;
+            }
+            int from = limitPrice <= basePrice ? 0 : (int) (limitPrice - basePrice);
+            total += depth.rangeSum(from, ladder.length - 1);
+            if (total < target && limitPrice < basePrice) {
+                total += overflow.availableQuantityBetween(limitPrice, basePrice, target - total);
+            }
+        } else {
+            long limitEnd = limitPrice == Long.MAX_VALUE ? limitPrice : limitPrice + 1;
+            total = overflow.availableQuantityBetween(Long.MIN_VALUE, Math.min(limitEnd, basePrice), target);
+            if (total >= target || limitPrice < basePrice) {
+                return total;
+            }
+            int to = limitPrice >= windowEnd ? ladder.length - 1 : (int) (limitPrice - basePrice);
+            total += depth.rangeSum(0, to);
+            if (total < target && limitEnd > windowEnd) {
+                total += overflow.availableQuantityBetween(windowEnd, limitEnd, target - total);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public boolean isBetter(long a, long b) {
+        return isBid ? a > b : a < b;
+    }
+
+    private int indexOf(long price) {
+        if (!centred) {
+            return -1;
+        }
+        long offset = price - basePrice;
+        return offset >= 0 && offset < ladder.length ? (int) offset : -1;
+    }
+
+    private void place(int index, OrderList level) {
+        ladder[index] = level;
+        level.tree = depth;
+        level.slot = index;
+        depth.add(index, level.availableQuantity());
+        ladderLevels++;
+        if (ladderLevels == 1 || isBetter(level.price, ladder[bestIndex].price)) {
+            bestIndex = index;
+        }
+    }
+
+    private void detach(OrderList level) {
+        depth.add(level.slot, -level.availableQuantity());
+        level.tree = null;
+    }
+
+    private void advanceCursor() {
+        int step = isBid ? -1 : 1;
+        int i = bestIndex + step;
+        while (ladder[i] == null) {
+            i += step;
+        }
+        bestIndex = i;
+    }
+
+    // Mueve la ventana para centrarla en el precio indicado y migra los niveles
+    // entre el arreglo y el skip list según corresponda
+    private void recentre(long centre) {
+        migration.clear();
+        for (int i = 0; i < ladder.length; i++) {
+            if (ladder[i] != null) {
+                migration.add(ladder[i]);
+                ladder[i].tree = null;
+                ladder[i] = null;
+            }
+        }
+        depth.clear();
+        ladderLevels = 0;
+        bestIndex = -1;
+
+        basePrice = centre - ladder.length / 2;
+        centred = true;
+
+        int fromLadder = migration.size();
+        overflow.forEachLevelBetween(basePrice, basePrice + ladder.length, migration::add);
+        for (int i = 0; i < migration.size(); i++) {
+            OrderList level = migration.get(i);
+            int index = indexOf(level.price);
+            if (i >= fromLadder) {
+                overflow.removeLevel(level);
+                place(index, level);
+            } else if (index >= 0) {
+                place(index, level);
+            } else {
+                overflow.add(level);
+            }
+        }
+        migration.clear();
+    }
+}
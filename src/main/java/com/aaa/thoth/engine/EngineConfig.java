@@ -0,0 +1,282 @@
+package com.aaa.thoth.engine;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+import com.lmax.disruptor.dsl.ProducerType;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Parámetros de ejecución del motor: ring, productores, espera y tipo de hilos
+public final class EngineConfig {
+    public static final int DEFAULT_RING_SIZE = 1024 * 64;
+    public static final int DEFAULT_MATCHING_SHARDS = 1;
+    public static final String DEFAULT_THREAD_PREFIX = "trading-engine-";
+    public static final int DEFAULT_JOURNAL_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    // Cómo esperan los handlers cuando el ring está vacío
+    public enum WaitStrategyType {
+        BUSY_SPIN,      // Menor latencia; consume un core por handler
+        YIELDING,       // Spin con yield; baja latencia si hay cores libres
+        SLEEPING,       // Spin, yield y luego parkNanos; bajo consumo en reposo
+        BLOCKING;       // Lock y condición; el menor consumo, la mayor latencia
+
+        WaitStrategy create() {
+            return switch (this) {
+                case BUSY_SPIN -> new BusySpinWaitStrategy();
+                case YIELDING -> new YieldingWaitStrategy();
+                case SLEEPING -> new SleepingWaitStrategy();
+                case BLOCKING -> new BlockingWaitStrategy();
+            };
+        }
+    }
+
+    public enum ThreadKind {
+        PLATFORM,       // Hilos dedicados con nombre, aptos para afinidad de CPU
+        VIRTUAL         // Solo para estrategias que bloquean (SLEEPING, BLOCKING)
+    }
+
+    // Cuándo llegan a disco los registros del journal
+    public enum JournalFlush {
+        OS_MANAGED,     // El SO vuelca las páginas; sobrevive a la caída del proceso, no a la de la máquina
+        END_OF_BATCH    // force() de lo escrito al cerrar cada lote del ring (group commit)
+    }
+
+    // Se invoca en cada hilo de handler antes de procesar eventos, con su índice en el
+    // orden de creación: el consumidor de reportes, los consumidores de trades, el
+    // journal si está habilitado, validación, riesgo, un matcher por shard y, con
+    // productor MULTI, el timer de expiración
+    @FunctionalInterface
+    public interface AffinityHook {
+        void onThreadStart(int threadIndex, Thread thread);
+    }
+
+    private final int ringSize;
+    private final int matchingShards;
+    private final ProducerType producerType;
+    private final WaitStrategyType waitStrategy;
+    private final ThreadKind threadKind;
+    private final String threadNamePrefix;
+    private final AffinityHook affinityHook;
+    private final double admissionFillRatio;
+    private final double maxTraderShare;
+    private final Path journalDirectory;
+    private final int journalSegmentSize;
+    private final JournalFlush journalFlush;
+
+    private EngineConfig(Builder builder) {
+        this.ringSize = builder.ringSize;
+        this.matchingShards = builder.matchingShards;
+        this.producerType = builder.producerType;
+        this.waitStrategy = builder.waitStrategy;
+        this.threadKind = builder.threadKind;
+        this.threadNamePrefix = builder.threadNamePrefix;
+        this.affinityHook = builder.affinityHook;
+        this.admissionFillRatio = builder.admissionFillRatio;
+        this.maxTraderShare = builder.maxTraderShare;
+        this.journalDirectory = builder.journalDirectory;
+        this.journalSegmentSize = builder.journalSegmentSize;
+        this.journalFlush = builder.journalFlush;
+    }
+
+    public static EngineConfig defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int ringSize() {
+        return ringSize;
+    }
+
+    public int matchingShards() {
+        return matchingShards;
+    }
+
+    public ProducerType producerType() {
+        return producerType;
+    }
+
+    public WaitStrategyType waitStrategy() {
+        return waitStrategy;
+    }
+
+    public ThreadKind threadKind() {
+        return threadKind;
+    }
+
+    public String threadNamePrefix() {
+        return threadNamePrefix;
+    }
+
+    public AffinityHook affinityHook() {
+        return affinityHook;
+    }
+
+    public double admissionFillRatio() {
+        return admissionFillRatio;
+    }
+
+    public double maxTraderShare() {
+        return maxTraderShare;
+    }
+
+    // null = sin journal
+    public Path journalDirectory() {
+        return journalDirectory;
+    }
+
+    public int journalSegmentSize() {
+        return journalSegmentSize;
+    }
+
+    public JournalFlush journalFlush() {
+        return journalFlush;
+    }
+
+    // Cada motor necesita su propia instancia: algunas estrategias guardan estado
+    WaitStrategy createWaitStrategy() {
+        return waitStrategy.create();
+    }
+
+    ThreadFactory createThreadFactory() {
+        ThreadFactory base = threadKind == ThreadKind.VIRTUAL
+                ? Thread.ofVirtual().name(threadNamePrefix, 0).factory()
+                : Thread.ofPlatform().daemon().name(threadNamePrefix, 0).factory();
+        if (affinityHook == null) {
+            return base;
+        }
+        AtomicInteger nextIndex = new AtomicInteger();
+        return task -> {
+            int index = nextIndex.getAndIncrement();
+            return base.newThread(() -> {
+                affinityHook.onThreadStart(index, Thread.currentThread());
+                task.run();
+            });
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EngineConfig{ringSize=%d, shards=%d, producer=%s, wait=%s, threads=%s, "
+                        + "fillRatio=%.2f, traderShare=%.2f, journal=%s, flush=%s}",
+                ringSize, matchingShards, producerType, waitStrategy, threadKind,
+                admissionFillRatio, maxTraderShare, journalDirectory, journalFlush);
+    }
+
+    public static final class Builder {
+        private int ringSize = DEFAULT_RING_SIZE;
+        private int matchingShards = DEFAULT_MATCHING_SHARDS;
+        private ProducerType producerType = ProducerType.MULTI;
+        private WaitStrategyType waitStrategy = WaitStrategyType.YIELDING;
+        private ThreadKind threadKind = ThreadKind.PLATFORM;
+        private String threadNamePrefix = DEFAULT_THREAD_PREFIX;
+        private AffinityHook affinityHook;
+        private double admissionFillRatio = 1.0;
+        private double maxTraderShare = 1.0;
+        private Path journalDirectory;
+        private int journalSegmentSize = DEFAULT_JOURNAL_SEGMENT_SIZE;
+        private JournalFlush journalFlush = JournalFlush.OS_MANAGED;
+
+        private Builder() {
+        }
+
+        public Builder ringSize(int ringSize) {
+            if (ringSize <= 0 || Integer.bitCount(ringSize) != 1) {
+                throw new IllegalArgumentException("Ring size must be a positive power of 2");
+            }
+            this.ringSize = ringSize;
+            return this;
+        }
+
+        public Builder matchingShards(int matchingShards) {
+            if (matchingShards <= 0) {
+                throw new IllegalArgumentException("Matching shards must be positive");
+            }
+            this.matchingShards = matchingShards;
+            return this;
+        }
+
+        // SINGLE exige que todos los comandos (órdenes, amends, cancelaciones y ticks de
+        // expiración) se publiquen desde un único hilo; el motor no arranca su timer propio
+        public Builder producerType(ProducerType producerType) {
+            this.producerType = Objects.requireNonNull(producerType, "producerType");
+            return this;
+        }
+
+        public Builder waitStrategy(WaitStrategyType waitStrategy) {
+            this.waitStrategy = Objects.requireNonNull(waitStrategy, "waitStrategy");
+            return this;
+        }
+
+        public Builder threadKind(ThreadKind threadKind) {
+            this.threadKind = Objects.requireNonNull(threadKind, "threadKind");
+            return this;
+        }
+
+        public Builder threadNamePrefix(String threadNamePrefix) {
+            this.threadNamePrefix = Objects.requireNonNull(threadNamePrefix, "threadNamePrefix");
+            return this;
+        }
+
+        public Builder affinityHook(AffinityHook affinityHook) {
+            this.affinityHook = affinityHook;
+            return this;
+        }
+
+        // trySubmit rechaza cuando la ocupación del ring alcanza esta fracción
+        public Builder admissionFillRatio(double admissionFillRatio) {
+            this.admissionFillRatio = checkRatio(admissionFillRatio, "Admission fill ratio");
+            return this;
+        }
+
+        // Fracción máxima del ring que un trader puede ocupar con órdenes de trySubmit
+        public Builder maxTraderShare(double maxTraderShare) {
+            this.maxTraderShare = checkRatio(maxTraderShare, "Max trader share");
+            return this;
+        }
+
+        // Habilita el journal de comandos de entrada; al arrancar, el motor reconstruye
+        // los libros reproduciendo lo que encuentre en el directorio
+        public Builder journalDirectory(Path journalDirectory) {
+            this.journalDirectory = journalDirectory;
+            return this;
+        }
+
+        public Builder journalSegmentSize(int journalSegmentSize) {
+            if (journalSegmentSize < 4096) {
+                throw new IllegalArgumentException("Journal segment size must be at least 4096 bytes");
+            }
+            this.journalSegmentSize = journalSegmentSize;
+            return this;
+        }
+
+        public Builder journalFlush(JournalFlush journalFlush) {
+            this.journalFlush = Objects.requireNonNull(journalFlush, "journalFlush");
+            return this;
+        }
+
+        private static double checkRatio(double ratio, String name) {
+            if (!(ratio > 0.0 && ratio <= 1.0)) {
+                throw new IllegalArgumentException(name + " must be in (0, 1]");
+            }
+            return ratio;
+        }
+
+        public EngineConfig build() {
+            // Un handler que hace spin en un hilo virtual acapara un carrier del ForkJoinPool
+            if (threadKind == ThreadKind.VIRTUAL
+                    && (waitStrategy == WaitStrategyType.BUSY_SPIN || waitStrategy == WaitStrategyType.YIELDING)) {
+                throw new IllegalArgumentException("Virtual threads require a SLEEPING or BLOCKING wait strategy");
+            }
+            return new EngineConfig(this);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.aaa.thoth.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Journal de comandos de entrada en segmentos mapeados en memoria y pre-asignados.
+// Cada segmento abre con [magic][versión][época de trade IDs], la marca de inicio de
+// los generadores de trade IDs del primer arranque: el replay reproduce los mismos IDs.
+// Cada registro es [longitud][crc32c][payload]; la longitud se escribe al final, así
+// que un registro a medio escribir se detecta como fin del journal. Una longitud 0
+// (el relleno del segmento pre-asignado) cierra el segmento. Un único hilo escribe
+final class EventJournal implements AutoCloseable {
+    static final int HEADER_LENGTH = 8;
+    static final int SEGMENT_HEADER_LENGTH = 16;
+    private static final int MAGIC = 0x54484A4E;   // "THJN"
+    private static final int VERSION = 1;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    @FunctionalInterface
+    interface RecordReader {
+        // payload posicionado al inicio del registro, con limit en su fin
+        void onRecord(ByteBuffer payload);
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final EngineConfig.JournalFlush flush;
+    private final CRC32C crc = new CRC32C();
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    private MappedByteBuffer segment;
+    private int position;
+    // Inicio del rango escrito y todavía no forzado a disco
+    private int dirtyFrom;
+    private int recordStart;
+    private long recoveredRecords;
+    private long epochMillis;
+
+    EventJournal(Path directory, int segmentSize, EngineConfig.JournalFlush flush) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.flush = flush;
+    }
+
+    // Mapea los segmentos existentes y deja el journal listo para anexar tras el último
+    // registro válido; los segmentos posteriores a un registro corrupto se descartan.
+    // Un journal nuevo adopta newEpochMillis como época de trade IDs
+    long recover(long newEpochMillis) throws IOException {
+        Files.createDirectories(directory);
+        recoveredRecords = 0;
+        epochMillis = newEpochMillis;
+        for (int index = 0; ; index++) {
+            Path file = segmentPath(index);
+            if (!Files.exists(file)) {
+                break;
+            }
+            MappedByteBuffer mapped = map(file);
+            if (index == 0) {
+                epochMillis = mapped.getLong(8);
+            }
+            segments.add(mapped);
+            int end = scan(mapped);
+            if (end >= 0) {
+                segment = mapped;
+                position = end;
+                deleteFrom(index + 1);
+                break;
+            }
+        }
+        if (segments.isEmpty()) {
+            segment = map(segmentPath(0));
+            segments.add(segment);
+            position = SEGMENT_HEADER_LENGTH;
+        } else if (segment == null) {
+            // Todos los segmentos están completos: el próximo registro abre uno nuevo
+            segment = segments.get(segments.size() - 1);
+            position = segment.capacity();
+        }
+        dirtyFrom = position;
+        return recoveredRecords;
+    }
+
+    long epochMillis() {
+        return epochMillis;
+    }
+
+    long recoveredRecords() {
+        return recoveredRecords;
+    }
+
+    // Recorre los registros recuperados en orden; se llama una vez, antes de anexar
+    void replay(RecordReader reader) {
+        for (MappedByteBuffer mapped : segments) {
+            ByteBuffer view = mapped.duplicate();
+            int end = mapped == segment ? position : mapped.capacity();
+            int offset = SEGMENT_HEADER_LENGTH;
+            while (offset + HEADER_LENGTH <= end) {
+                int length = view.getInt(offset);
+                if (length <= 0) {
+                    break;
+                }
+                int payloadStart = offset + HEADER_LENGTH;
+                view.limit(payloadStart + length).position(payloadStart);
+                reader.onRecord(view);
+                view.limit(view.capacity());
+                offset = payloadStart + length;
+            }
+            if (mapped == segment) {
+                break;
+            }
+        }
+    }
+
+    // Reserva un registro de length bytes y devuelve el segmento posicionado en su payload
+    ByteBuffer beginRecord(int length) {
+        if (SEGMENT_HEADER_LENGTH + HEADER_LENGTH + length > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + length + " bytes exceeds segment size");
+        }
+        if (position + HEADER_LENGTH + length > segment.capacity()) {
+            roll();
+        }
+        recordStart = position;
+        segment.limit(recordStart + HEADER_LENGTH + length).position(recordStart + HEADER_LENGTH);
+        return segment;
+    }
+
+    // Sella el registro: primero el crc, al final la longitud que lo hace visible
+    void endRecord() {
+        int payloadStart = recordStart + HEADER_LENGTH;
+        int end = segment.position();
+        segment.position(payloadStart);
+        crc.reset();
+        crc.update(segment);
+        segment.limit(segment.capacity());
+        segment.putInt(recordStart + 4, (int) crc.getValue());
+        segment.putInt(recordStart, end - payloadStart);
+        position = end;
+    }
+
+    // Group commit: con END_OF_BATCH fuerza a disco una vez por lote del ring
+    void commit() {
+        if (flush == EngineConfig.JournalFlush.END_OF_BATCH && position > dirtyFrom) {
+            segment.force(dirtyFrom, position - dirtyFrom);
+        }
+        dirtyFrom = position;
+    }
+
+    @Override
+    public void close() {
+        if (segment != null) {
+            commit();
+        }
+    }
+
+    // Devuelve la posición tras el último registro válido, o -1 si el segmento está completo
+    private int scan(MappedByteBuffer mapped) {
+        ByteBuffer view = mapped.duplicate();
+        int offset = SEGMENT_HEADER_LENGTH;
+        while (offset + HEADER_LENGTH <= view.capacity()) {
+            int length = view.getInt(offset);
+            if (length == 0) {
+                // Relleno: fin del segmento; solo es el fin del journal si no hay otro después
+                return Files.exists(segmentPath(segments.size())) ? -1 : offset;
+            }
+            int payloadStart = offset + HEADER_LENGTH;
+            if (length < 0 || payloadStart + length > view.capacity()
+                    || view.getInt(offset + 4) != checksum(view, payloadStart, length)) {
+                // Registro roto por una caída a mitad de escritura: se sobrescribe al anexar
+                view.putInt(offset, 0);
+                return offset;
+            }
+            recoveredRecords++;
+            offset = payloadStart + length;
+        }
+        return -1;
+    }
+
+    private int checksum(ByteBuffer view, int from, int length) {
+        view.limit(from + length).position(from);
+        crc.reset();
+        crc.update(view);
+        view.limit(view.capacity());
+        return (int) crc.getValue();
+    }
+
+    private void roll() {
+        commit();
+        try {
+            segment = map(segmentPath(segments.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.add(segment);
+        position = SEGMENT_HEADER_LENGTH;
+        dirtyFrom = position;
+    }
+
+    // El archivo se pre-asigna con su tamaño final; el mapeo sigue vivo tras cerrar el
+    // canal. Un segmento nuevo recibe su cabecera, uno existente la valida
+    private MappedByteBuffer map(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = Math.max(channel.size(), segmentSize);
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        if (mapped.getInt(0) == 0) {
+            mapped.putLong(8, epochMillis);
+            mapped.putInt(4, VERSION);
+            mapped.putInt(0, MAGIC);
+            if (flush == EngineConfig.JournalFlush.END_OF_BATCH) {
+                mapped.force(0, SEGMENT_HEADER_LENGTH);
+            }
+        } else {
+            checkHeader(mapped, file);
+        }
+        return mapped;
+    }
+
+    private static void checkHeader(ByteBuffer header, Path file) throws IOException {
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a journal segment or unsupported version: " + file);
+        }
+    }
+
+    private void deleteFrom(int index) throws IOException {
+        for (int i = index; Files.deleteIfExists(segmentPath(i)); i++) {
+            // Segmentos posteriores al último registro válido
+        }
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+}
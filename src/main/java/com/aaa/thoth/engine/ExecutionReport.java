@@ -0,0 +1,139 @@
+package com.aaa.thoth.engine;
+
+import com.aaa.thoth.core.OrderView;
+import com.aaa.thoth.core.enums.OrderSide;
+import com.aaa.thoth.core.enums.OrderStatus;
+
+// Slot reutilizable del ring de salida; lo escribe el matcher y lo lee el listener
+// de la sesión. Para conservarlo hay que copiar los campos
+public final class ExecutionReport {
+
+    public enum ExecType {
+        NEW,        // Aceptada y en el libro (o estacionada como stop) sin ejecuciones
+        TRADE,      // Ejecución parcial o total; lastPrice/lastQuantity la describen
+        REPLACED,   // Amend aplicado
+        CANCELLED,  // Cancelada, o remanente descartado (IOC, mercado, FOK, subasta)
+        EXPIRED,    // Vencida por expiresAt o cierre de sesión
+        REJECTED    // Rechazada antes del matching; rejectReason indica el motivo
+    }
+
+    private ExecType execType;
+    private long orderId;
+    private String clientOrderId;
+    private String symbol;
+    private String traderId;
+    private OrderSide side;
+    private long price;
+    private long quantity;
+    private long filledQuantity;
+    private OrderStatus status;
+    private long tradeId;
+    private long lastPrice;
+    private long lastQuantity;
+    private RejectReason rejectReason;
+
+    void set(ExecType execType, OrderEntry entry, long tradeId, long lastPrice, long lastQuantity) {
+        this.execType = execType;
+        this.orderId = entry.orderId;
+        this.clientOrderId = entry.clientOrderId;
+        this.symbol = entry.symbol;
+        this.traderId = entry.traderId;
+        this.side = entry.side;
+        this.price = entry.price;
+        this.quantity = entry.quantity;
+        this.filledQuantity = entry.filledQuantity;
+        // El remanente descartado de una IOC o de mercado no cambia el estado de la entrada
+        this.status = execType == ExecType.CANCELLED ? OrderStatus.CANCELLED : entry.status;
+        this.tradeId = tradeId;
+        this.lastPrice = lastPrice;
+        this.lastQuantity = lastQuantity;
+        this.rejectReason = null;
+    }
+
+    void setRejected(OrderView order, RejectReason rejectReason) {
+        this.execType = ExecType.REJECTED;
+        this.orderId = order.orderId();
+        this.clientOrderId = order.clientOrderId();
+        this.symbol = order.symbol();
+        this.traderId = order.traderId();
+        this.side = order.side();
+        this.price = order.price();
+        this.quantity = order.quantity();
+        this.filledQuantity = 0L;
+        this.status = OrderStatus.REJECTED;
+        this.tradeId = 0L;
+        this.lastPrice = 0L;
+        this.lastQuantity = 0L;
+        this.rejectReason = rejectReason;
+    }
+
+    public ExecType execType() {
+        return execType;
+    }
+
+    public long orderId() {
+        return orderId;
+    }
+
+    public String clientOrderId() {
+        return clientOrderId;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public String traderId() {
+        return traderId;
+    }
+
+    public OrderSide side() {
+        return side;
+    }
+
+    public long price() {
+        return price;
+    }
+
+    public long quantity() {
+        return quantity;
+    }
+
+    public long filledQuantity() {
+        return filledQuantity;
+    }
+
+    public long leavesQuantity() {
+        return isTerminal() ? 0L : quantity - filledQuantity;
+    }
+
+    public OrderStatus status() {
+        return status;
+    }
+
+    public long tradeId() {
+        return tradeId;
+    }
+
+    public long lastPrice() {
+        return lastPrice;
+    }
+
+    public long lastQuantity() {
+        return lastQuantity;
+    }
+
+    public RejectReason rejectReason() {
+        return rejectReason;
+    }
+
+    private boolean isTerminal() {
+        return execType == ExecType.CANCELLED || execType == ExecType.EXPIRED || execType == ExecType.REJECTED;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ExecutionReport{%s id=%d trader=%s %s %s filled=%d/%d last=%d@%d}",
+                execType, orderId, traderId, symbol, status, filledQuantity, quantity, lastQuantity, lastPrice);
+    }
+}
@@ -0,0 +1,12 @@
+package com.aaa.thoth.engine;
+
+// Sesión que recibe los reportes de ejecución de sus órdenes. Se invoca desde el
+// hilo consumidor del ring de salida, nunca desde un matcher; el reporte es un
+// flyweight del ring y solo es válido durante la llamada
+@FunctionalInterface
+public interface ExecutionReportListener {
+
+    // endOfBatch marca el último reporte disponible en el ring: punto natural para
+    // hacer flush hacia la red
+    void onExecutionReport(ExecutionReport report, boolean endOfBatch);
+}
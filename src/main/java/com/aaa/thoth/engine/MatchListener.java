@@ -0,0 +1,25 @@
+package com.aaa.thoth.engine;
+
+// Receptor de los resultados del matching de una orden. Las entradas que recibe
+// son flyweights del libro: solo son válidas durante la llamada y no deben
+// retenerse; para conservar el estado usar OrderEntry.toOrder()
+public interface MatchListener {
+
+    // Una ejecución, ya aplicada a ambas órdenes
+    void onTrade(OrderEntry maker, OrderEntry taker, long price, long quantity);
+
+    // Estado final de la orden entrante: resting indica si quedó en el libro
+    void onOrderProcessed(OrderEntry order, boolean resting);
+
+    // Estado final de un stop activado por el último precio y ya reinyectado al matching
+    default void onStopTriggered(OrderEntry order, boolean resting) {
+    }
+
+    // Orden retirada del libro por vencimiento (expiresAt o cierre de sesión)
+    default void onOrderExpired(OrderEntry order) {
+    }
+
+    // Orden retirada del libro por una cancelación masiva
+    default void onOrderCancelled(OrderEntry order) {
+    }
+}
@@ -1,25 +1,102 @@
 package com.aaa.thoth.engine;
 
+import com.aaa.thoth.core.IdGenerator;
+import com.aaa.thoth.core.IdGenerators;
+import com.aaa.thoth.core.InstrumentRegistry;
 import com.aaa.thoth.core.Order;
+import com.aaa.thoth.core.OrderView;
 import com.aaa.thoth.core.Trade;
 import com.aaa.thoth.core.enums.OrderSide;
 import com.aaa.thoth.core.enums.OrderType;
 import com.aaa.thoth.core.enums.OrderStatus;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongArrayList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.locks.StampedLock;
-import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
 
+// Libro de órdenes de un solo escritor: processOrder y cancelOrder deben invocarse
+// siempre desde el mismo hilo (el matcher dueño de los símbolos). Las consultas
+// pueden hacerse desde cualquier hilo.
 public class OrderBook {
     private static final Logger logger = LoggerFactory.getLogger(OrderBook.class);
-    private final ConcurrentHashMap<String, SymbolOrderBook> books;
+    private final InstrumentRegistry instruments;
+    // Libros indexados por ID de símbolo; solo el escritor llena posiciones
+    private final SymbolOrderBook[] books;
+    private final ConcurrentHashMap<String, BookConfig> bookConfigs;
+    private final BookConfig defaultConfig;
+    // IDs para órdenes que llegan sin asignar (uso directo del libro, sin motor)
+    private final IdGenerator orderIds;
+
+    // Alcance "cualquier símbolo" de cancelOrders
+    public static final int ALL_SYMBOLS = -1;
+    // Mayor profundidad top-N con vista cacheada; la completa tiene su propia vista
+    private static final int MAX_CACHED_DEPTH = 64;
+    private static final int FULL_DEPTH = Integer.MAX_VALUE;
+
+    // Implementación del almacenamiento de niveles de precio
+    public enum BookType {
+        SKIP_LIST,      // Skip list ordenado, para libros dispersos
+        DENSE_LADDER    // Arreglo indexado por tick alrededor del touch
+    }
+
+    // Fase de negociación de un símbolo
+    public enum TradingPhase {
+        CONTINUOUS,     // Matching continuo por precio-tiempo
+        AUCTION         // Subasta: las órdenes se acumulan sin ejecutar hasta el uncross
+    }
+
+    // Resultado de un uncross: precio de equilibrio, volumen ejecutado y desbalance
+    // al precio (demanda - oferta; positivo si sobran compras). price 0 si no hubo cruce
+    public record AuctionResult(long price, long volume, long imbalance) {
+    }
+
+    private record BookConfig(BookType type, int ladderTicks) {
+        BookSide createSide(boolean isBid) {
+            return switch (type) {
+                case SKIP_LIST -> new SkipListBookSide(isBid);
+                case DENSE_LADDER -> new DenseBookSide(isBid, ladderTicks);
+            };
+        }
+    }
 
     public OrderBook() {
-        this.books = new ConcurrentHashMap<>();
+        this(BookType.SKIP_LIST);
+    }
+
+    public OrderBook(BookType defaultBookType) {
+        this(InstrumentRegistry.global(), defaultBookType);
+    }
+
+    public OrderBook(InstrumentRegistry instruments, BookType defaultBookType) {
+        this.instruments = instruments;
+        this.books = new SymbolOrderBook[instruments.capacity()];
+        this.bookConfigs = new ConcurrentHashMap<>();
+        this.defaultConfig = new BookConfig(defaultBookType, DenseBookSide.DEFAULT_LADDER_TICKS);
+        this.orderIds = IdGenerators.defaultGenerator();
+    }
+
+    // Selecciona la implementación del libro de un símbolo antes de que reciba órdenes
+    public void configureSymbol(String symbol, BookType bookType) {
+        configureSymbol(symbol, bookType, DenseBookSide.DEFAULT_LADDER_TICKS);
+    }
+
+    public void configureSymbol(String symbol, BookType bookType, int ladderTicks) {
+        if (ladderTicks <= 0) {
+            throw new IllegalArgumentException("Ladder size must be positive");
+        }
+        int symbolId = instruments.idOf(symbol);
+        if (symbolId != InstrumentRegistry.UNKNOWN_SYMBOL && books[symbolId] != null) {
+            throw new IllegalStateException("Order book for " + symbol + " already exists");
+        }
+        bookConfigs.put(symbol, new BookConfig(bookType, ladderTicks));
     }
 
     public record MatchingResult(List<Trade> trades, Order remainingOrder) {
@@ -31,17 +108,19 @@ public class OrderBook {
         }
     }
 
+    // Vista inmutable del libro; version es el sello del seqlock con que se construyó
     public record BookSnapshot(
             String symbol,
             List<PriceLevel> bids,
             List<PriceLevel> asks,
-            double lastPrice,
-            long lastQuantity
+            long lastPrice,
+            long lastQuantity,
+            long version
     ) {
         @Override
         public String toString() {
-            return String.format("BookSnapshot{symbol=%s, bids=%d, asks=%d, lastPrice=%.2f, lastQty=%d}",
-                    symbol, bids.size(), asks.size(), lastPrice, lastQuantity);
+            return String.format("BookSnapshot{symbol=%s, bids=%d, asks=%d, lastPrice=%d, lastQty=%d, version=%d}",
+                    symbol, bids.size(), asks.size(), lastPrice, lastQuantity, version);
         }
     }
 
@@ -49,360 +128,967 @@ public class OrderBook {
             String symbol,
             int bidLevels,
             int askLevels,
-            double bestBid,
-            double bestAsk,
-            double lastPrice,
+            long bestBid,
+            long bestAsk,
+            long lastPrice,
             long lastQuantity
     ) {
-        public double spread() {
+        // Spread en ticks
+        public long spread() {
             return bestAsk - bestBid;
         }
 
+        // Precio medio en ticks (puede caer entre dos ticks)
         public double midPrice() {
             return (bestBid + bestAsk) / 2.0;
         }
     }
 
     public record PriceLevel(
-            double price,
+            long price,
             long quantity,
             int orderCount
     ) {
         @Override
         public String toString() {
-            return String.format("PriceLevel{%.2f @ %d [%d orders]}",
+            return String.format("PriceLevel{%d @ %d [%d orders]}",
                     price, quantity, orderCount);
         }
     }
 
     public MatchingResult processOrder(Order order) {
+        MatchingResultCollector collector = new MatchingResultCollector();
+        processOrder(order, collector);
+        return collector.toResult();
+    }
+
+    // Variante sin basura: las ejecuciones y el residuo se entregan al listener.
+    // Uso directo del libro: registra el símbolo si todavía no tiene ID
+    public void processOrder(Order order, MatchListener listener) {
+        processOrder(instruments.register(order.symbol()), order, listener);
+    }
+
+    // Ruta del motor: el ID del símbolo ya se resolvió al entrar la orden y la orden
+    // puede leerse directamente del slot del ring
+    public void processOrder(int symbolId, OrderView order, MatchListener listener) {
         logger.debug("Processing order: {}", order);
-        return books.computeIfAbsent(order.symbol(), SymbolOrderBook::new)
-                .processOrder(order);
+        bookFor(symbolId).processOrder(order, listener);
+    }
+
+    // Cancel/replace en un solo paso; null si la orden no existe o el cambio no es válido
+    public MatchingResult amendOrder(String symbol, long orderId, long newPrice, long newQuantity) {
+        SymbolOrderBook book = existingBook(symbol);
+        if (book == null) {
+            return null;
+        }
+        MatchingResultCollector collector = new MatchingResultCollector();
+        return book.amendOrder(orderId, newPrice, newQuantity, collector) ? collector.toResult() : null;
+    }
+
+    // Reducir cantidad al mismo precio conserva la prioridad; cambiar el precio o
+    // aumentar la cantidad la pierde y puede ejecutar. El estado final llega por
+    // onOrderProcessed. Devuelve false si no hay orden viva con ese ID
+    public boolean amendOrder(int symbolId, long orderId, long newPrice, long newQuantity,
+                              MatchListener listener) {
+        SymbolOrderBook book = books[symbolId];
+        return book != null && book.amendOrder(orderId, newPrice, newQuantity, listener);
+    }
+
+    // Orden viva (en el libro o stop pendiente) con ese ID, o null; solo desde el hilo
+    // escritor, por ejemplo para validar un amend antes de aplicarlo
+    public OrderEntry findOrder(int symbolId, long orderId) {
+        SymbolOrderBook book = symbolId >= 0 ? books[symbolId] : null;
+        return book != null ? book.ordersById.get(orderId) : null;
+    }
+
+    // Arma el MatchingResult clásico; los trades llevan snapshots previos a cada ejecución
+    private static final class MatchingResultCollector implements MatchListener {
+        private final List<Trade> trades = new ArrayList<>();
+        private final Instant now = Instant.now();
+        private Order remainingOrder;
+        private boolean processed;
+
+        @Override
+        public void onTrade(OrderEntry maker, OrderEntry taker, long price, long quantity) {
+            // Las ejecuciones de stops activados después de la orden no le pertenecen
+            if (processed) {
+                return;
+            }
+            Trade trade = Trade.createTrade(beforeFill(maker, quantity), beforeFill(taker, quantity),
+                    price, quantity);
+            trades.add(trade);
+            logger.debug("Created trade: {}", trade);
+        }
+
+        @Override
+        public void onOrderProcessed(OrderEntry order, boolean resting) {
+            remainingOrder = order.remainingQuantity() > 0 ? order.toOrder(now) : null;
+            processed = true;
+        }
+
+        private Order beforeFill(OrderEntry entry, long quantity) {
+            long filled = entry.filledQuantity - quantity;
+            return entry.toOrder(now, filled, filled > 0 ? OrderStatus.PARTIALLY_FILLED : OrderStatus.NEW);
+        }
+
+        MatchingResult toResult() {
+            return new MatchingResult(trades, remainingOrder);
+        }
+    }
+
+    // Solo el hilo escritor crea libros, así que leer y asignar la posición no compite
+    private SymbolOrderBook bookFor(int symbolId) {
+        SymbolOrderBook book = books[symbolId];
+        if (book == null) {
+            book = createBook(instruments.symbolOf(symbolId));
+            books[symbolId] = book;
+        }
+        return book;
+    }
+
+    private SymbolOrderBook createBook(String symbol) {
+        return new SymbolOrderBook(symbol, bookConfigs.getOrDefault(symbol, defaultConfig),
+                orderIds);
+    }
+
+    private SymbolOrderBook existingBook(String symbol) {
+        int symbolId = instruments.idOf(symbol);
+        return symbolId != InstrumentRegistry.UNKNOWN_SYMBOL ? books[symbolId] : null;
     }
 
     public BookSnapshot getSnapshot(String symbol) {
-        SymbolOrderBook book = books.get(symbol);
-        return book != null ? book.getSnapshot() : null;
+        return getSnapshot(symbol, FULL_DEPTH);
+    }
+
+    // Top-N niveles por lado; se reconstruye solo si el libro cambió desde la última vista
+    public BookSnapshot getSnapshot(String symbol, int depth) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Depth must be positive");
+        }
+        SymbolOrderBook book = existingBook(symbol);
+        return book != null ? book.getSnapshot(depth) : null;
     }
 
     public BookStatistics getStatistics(String symbol) {
-        SymbolOrderBook book = books.get(symbol);
+        SymbolOrderBook book = existingBook(symbol);
         return book != null ? book.getStatistics() : null;
     }
 
-    public void cancelOrder(String symbol, String orderId) {
-        SymbolOrderBook book = books.get(symbol);
+    public void cancelOrder(String symbol, long orderId) {
+        SymbolOrderBook book = existingBook(symbol);
         if (book != null) {
             book.cancelOrder(orderId);
         }
     }
 
+    // Cancelación masiva; null en traderId o side no filtra por ese campo
+    public int cancelOrders(String traderId, String symbol, OrderSide side, MatchListener listener) {
+        if (symbol == null) {
+            return cancelOrders(traderId, ALL_SYMBOLS, side, listener);
+        }
+        int symbolId = instruments.idOf(symbol);
+        return symbolId != InstrumentRegistry.UNKNOWN_SYMBOL
+                ? cancelOrders(traderId, symbolId, side, listener)
+                : 0;
+    }
+
+    // Retira todas las órdenes vivas (incluidos stops pendientes) del alcance y las
+    // notifica por onOrderCancelled. Con trader se recorre solo su cadena de órdenes;
+    // el costo crece con las órdenes afectadas, no con el tamaño del libro
+    public int cancelOrders(String traderId, int symbolId, OrderSide side, MatchListener listener) {
+        if (symbolId != ALL_SYMBOLS) {
+            SymbolOrderBook book = books[symbolId];
+            return book != null ? book.cancelOrders(traderId, side, listener) : 0;
+        }
+        int cancelled = 0;
+        for (SymbolOrderBook book : books) {
+            if (book != null) {
+                cancelled += book.cancelOrders(traderId, side, listener);
+            }
+        }
+        return cancelled;
+    }
+
+    // Abre la fase de subasta del símbolo: desde aquí las órdenes se acumulan sin
+    // ejecutar (el libro puede quedar cruzado) hasta el uncross
+    public void startAuction(String symbol) {
+        startAuction(instruments.register(symbol));
+    }
+
+    public void startAuction(int symbolId) {
+        bookFor(symbolId).startAuction();
+    }
+
+    public TradingPhase getTradingPhase(String symbol) {
+        SymbolOrderBook book = existingBook(symbol);
+        return book != null && book.auction ? TradingPhase.AUCTION : TradingPhase.CONTINUOUS;
+    }
+
+    // Cierra la subasta: ejecuta todo lo cruzado a un único precio de equilibrio y
+    // vuelve al matching continuo. referencePrice (ticks) desempata entre precios
+    // candidatos; 0 usa el último precio negociado
+    public AuctionResult uncross(String symbol, long referencePrice, MatchListener listener) {
+        SymbolOrderBook book = existingBook(symbol);
+        return book != null ? book.uncross(referencePrice, listener) : new AuctionResult(0L, 0L, 0L);
+    }
+
+    public AuctionResult uncross(int symbolId, long referencePrice, MatchListener listener) {
+        SymbolOrderBook book = books[symbolId];
+        return book != null ? book.uncross(referencePrice, listener) : new AuctionResult(0L, 0L, 0L);
+    }
+
+    public MatchingResult uncross(String symbol, long referencePrice) {
+        MatchingResultCollector collector = new MatchingResultCollector();
+        uncross(symbol, referencePrice, collector);
+        return collector.toResult();
+    }
+
+    // Vence las órdenes con expiresAt <= nowMillis; lo invoca el hilo escritor
+    public void expireOrders(long nowMillis, MatchListener listener) {
+        for (SymbolOrderBook book : books) {
+            if (book != null) {
+                book.expireOrders(nowMillis, listener);
+            }
+        }
+    }
+
+    // Cota inferior del próximo vencimiento entre todos los símbolos, legible desde
+    // cualquier hilo: sin nada vencido, un tick de expiración no cambiaría el libro
+    public long nextExpiryMillis() {
+        long next = Long.MAX_VALUE;
+        for (SymbolOrderBook book : books) {
+            if (book != null) {
+                next = Math.min(next, book.nextExpiryMillis);
+            }
+        }
+        return next;
+    }
+
+    // Cierre de sesión: vence todas las órdenes con vencimiento (day/GTD); las que no
+    // tienen expiresAt siguen en el libro
+    public void expireSession(MatchListener listener) {
+        for (SymbolOrderBook book : books) {
+            if (book != null) {
+                book.expireSession(listener);
+            }
+        }
+    }
+
     private static class SymbolOrderBook {
         private final String symbol;
-        private final StampedLock lock;
-        private final ConcurrentSkipListMap<Double, OrderList> bids;
-        private final ConcurrentSkipListMap<Double, OrderList> asks;
-        private final Map<String, OrderInfo> ordersById;
-        private volatile double lastPrice;
+        private final BookSide bids;
+        private final BookSide asks;
+        // Índice de stops pendientes por precio de activación: compras de menor a
+        // mayor stop, ventas de mayor a menor; FIFO dentro de cada precio
+        private final SkipListBookSide buyStops;
+        private final SkipListBookSide sellStops;
+        private final Long2ObjectHashMap<OrderEntry> ordersById;
+        // Cabeza de la cadena de órdenes vivas de cada trader
+        private final HashMap<String, OrderEntry> traderOrders;
+        private final OrderEntryPool entryPool;
+        private final IdGenerator orderIds;
+        private final TimingWheel expiryWheel;
+        private final Consumer<OrderEntry> expireAction;
+        private MatchListener expiryListener;
+        // Fase del símbolo; solo la cambia el hilo escritor
+        private volatile boolean auction;
+        // Niveles agregados del último uncross, reutilizados entre subastas
+        private final LongArrayList auctionPrices = new LongArrayList();
+        private final LongArrayList auctionQuantities = new LongArrayList();
+        private volatile long lastPrice;
         private volatile long lastQuantity;
+        private volatile long version;
+        // Cota inferior del próximo vencimiento del wheel; cancelar no la sube, el
+        // siguiente tick la recalcula
+        private volatile long nextExpiryMillis = Long.MAX_VALUE;
+        // Última vista publicada por profundidad pedida, indexada por la profundidad (sin
+        // claves boxeadas); la comparten todos los lectores hasta que el libro cambie
+        private final AtomicReferenceArray<BookSnapshot> cachedViews =
+                new AtomicReferenceArray<>(MAX_CACHED_DEPTH + 1);
+        private volatile BookSnapshot fullView;
+
+        private SymbolOrderBook(String symbol, BookConfig config, IdGenerator orderIds) {
+            this.symbol = symbol;
+            this.bids = config.createSide(true);
+            this.asks = config.createSide(false);
+            this.buyStops = new SkipListBookSide(false);
+            this.sellStops = new SkipListBookSide(true);
+            this.ordersById = new Long2ObjectHashMap<>();
+            this.traderOrders = new HashMap<>();
+            this.entryPool = new OrderEntryPool();
+            this.orderIds = orderIds;
+            this.expiryWheel = new TimingWheel();
+            this.expireAction = this::expire;
+        }
 
-        private static class OrderList {
-            final LinkedList<Order> orders = new LinkedList<>();
-            long totalQuantity;
+        public void processOrder(OrderView order, MatchListener listener) {
+            beginWrite();
+            try {
+                OrderEntry taker = entryPool.acquire();
+                taker.init(order);
+                // Símbolo canónico del registro: las comparaciones posteriores son por referencia
+                taker.symbol = symbol;
+                if (taker.orderId == 0L) {
+                    taker.orderId = orderIds.nextId();
+                }
 
-            void addOrder(Order order) {
-                orders.addLast(order);
-                totalQuantity += order.getRemainingQuantity();
-            }
+                if (isStop(taker) && !isTriggeredBy(taker, lastPrice)) {
+                    addStop(taker);
+                    listener.onOrderProcessed(taker, true);
+                    return;
+                }
+                taker.triggered = isStop(taker);
 
-            Order removeFirst() {
-                Order order = orders.removeFirst();
-                totalQuantity -= order.getRemainingQuantity();
-                return order;
-            }
+                // En subasta solo se aceptan órdenes que pueden esperar en el libro
+                if (auction && !shouldAddToBook(taker)) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Order {} killed: cannot rest during auction", taker.orderId);
+                    }
+                    kill(taker, listener);
+                    return;
+                }
+
+                // FOK y cantidad mínima se deciden antes de cualquier ejecución
+                if (!auction && !canFillRequired(taker)) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Order {} killed: required quantity not available", taker.orderId);
+                    }
+                    kill(taker, listener);
+                    return;
+                }
 
-            void updateFirstOrder(Order updatedOrder, Order originalOrder) {
-                orders.set(0, updatedOrder);
-                totalQuantity = totalQuantity - originalOrder.getRemainingQuantity() + updatedOrder.getRemainingQuantity();
+                boolean resting = matchAndRest(taker, listener);
+                listener.onOrderProcessed(taker, resting);
+                // Antes de liberar: el pool limpia la entrada
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Order {} processed", taker.orderId);
+                }
+                if (!resting) {
+                    entryPool.release(taker);
+                }
+                triggerStops(listener);
+            } finally {
+                endWrite();
             }
+        }
+
+        // Devuelve la entrada al pool: quien llama ya no puede leerla
+        private void kill(OrderEntry taker, MatchListener listener) {
+            taker.status = OrderStatus.CANCELLED;
+            listener.onOrderProcessed(taker, false);
+            entryPool.release(taker);
+        }
 
-            boolean isEmpty() {
-                return orders.isEmpty();
+        private boolean matchAndRest(OrderEntry taker, MatchListener listener) {
+            // En subasta no se ejecuta hasta el uncross
+            if (!auction) {
+                if (taker.side == OrderSide.BUY) {
+                    matchWithAsks(taker, listener);
+                } else {
+                    matchWithBids(taker, listener);
+                }
             }
 
-            int size() {
-                return orders.size();
+            boolean resting = taker.remainingQuantity() > 0 && shouldAddToBook(taker);
+            if (resting) {
+                addToBook(taker);
             }
+            return resting;
+        }
 
-            long getTotalQuantity() {
-                return totalQuantity;
+        private boolean canFillRequired(OrderEntry taker) {
+            long required = taker.type == OrderType.FOK ? taker.remainingQuantity() : taker.minQuantity;
+            if (required <= 0) {
+                return true;
             }
+            long limit = hasLimitPrice(taker)
+                    ? taker.price
+                    : taker.side == OrderSide.BUY ? Long.MAX_VALUE : Long.MIN_VALUE;
+            BookSide opposite = taker.side == OrderSide.BUY ? asks : bids;
+            return opposite.availableQuantity(limit, required) >= required;
         }
 
-        private static class OrderInfo {
-            final Order order;
-            final double price;
+        private static boolean isStop(OrderEntry order) {
+            return order.type == OrderType.STOP || order.type == OrderType.STOP_LIMIT;
+        }
 
-            OrderInfo(Order order) {
-                this.order = order;
-                this.price = order.price();
+        // Compra se activa con último precio >= stop; venta con último precio <= stop
+        private static boolean isTriggeredBy(OrderEntry stop, long price) {
+            if (price <= 0) {
+                return false;
             }
+            return stop.side == OrderSide.BUY ? price >= stop.stopPrice : price <= stop.stopPrice;
         }
 
-        public SymbolOrderBook(String symbol) {
-            this.symbol = symbol;
-            this.lock = new StampedLock();
-            this.bids = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
-            this.asks = new ConcurrentSkipListMap<>();
-            this.ordersById = new HashMap<>();
+        private void addStop(OrderEntry stop) {
+            stopSide(stop).getOrCreate(stop.stopPrice).addOrder(stop);
+            ordersById.put(stop.orderId, stop);
+            linkTrader(stop);
+            scheduleExpiry(stop);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Parked stop order {} at {}", stop.orderId, stop.stopPrice);
+            }
         }
 
-        public MatchingResult processOrder(Order order) {
-            List<Trade> trades = new ArrayList<>();
-            Order remainingOrder = order;
+        private SkipListBookSide stopSide(OrderEntry stop) {
+            return stop.side == OrderSide.BUY ? buyStops : sellStops;
+        }
 
-            long stamp = lock.writeLock();
-            try {
-                if (order.side() == OrderSide.BUY) {
-                    remainingOrder = matchWithAsks(order, trades);
-                } else {
-                    remainingOrder = matchWithBids(order, trades);
+        // Reinyecta uno a uno los stops activados por el último precio, en orden
+        // determinista: compras antes que ventas, por precio de stop y luego por llegada.
+        // Cada activación cuesta O(log n) y puede disparar otras en cascada
+        private void triggerStops(MatchListener listener) {
+            OrderEntry stop;
+            while ((stop = nextTriggeredStop()) != null) {
+                unlink(stopSide(stop), stop);
+                stop.triggered = true;
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Stop order {} triggered at {}", stop.orderId, lastPrice);
                 }
 
-                if (remainingOrder != null &&
-                        remainingOrder.getRemainingQuantity() > 0 &&
-                        shouldAddToBook(remainingOrder)) {
-                    addToBook(remainingOrder);
+                boolean resting = matchAndRest(stop, listener);
+                listener.onStopTriggered(stop, resting);
+                if (!resting) {
+                    entryPool.release(stop);
                 }
-
-                logger.debug("Order {} processed. Generated {} trades",
-                        order.orderId(), trades.size());
-                return new MatchingResult(trades, remainingOrder);
-            } finally {
-                lock.unlockWrite(stamp);
             }
         }
 
-        private Order matchWithAsks(Order buyOrder, List<Trade> trades) {
-            Order currentOrder = buyOrder;
+        private OrderEntry nextTriggeredStop() {
+            long price = lastPrice;
+            if (price <= 0) {
+                return null;
+            }
+            OrderList buyLevel = buyStops.best();
+            if (buyLevel != null && buyLevel.price <= price) {
+                return buyLevel.first();
+            }
+            OrderList sellLevel = sellStops.best();
+            if (sellLevel != null && sellLevel.price >= price) {
+                return sellLevel.first();
+            }
+            return null;
+        }
 
-            while (currentOrder != null &&
-                    currentOrder.getRemainingQuantity() > 0 &&
-                    !asks.isEmpty()) {
+        private void matchWithAsks(OrderEntry buyOrder, MatchListener listener) {
+            while (buyOrder.remainingQuantity() > 0 && !asks.isEmpty()) {
+                OrderList orderList = asks.best();
 
-                Map.Entry<Double, OrderList> bestAsk = asks.firstEntry();
-                if (bestAsk == null || bestAsk.getValue().isEmpty()) {
+                // Toda orden con precio límite (LIMIT, IOC, FOK, ICEBERG...) lo respeta
+                if (hasLimitPrice(buyOrder) && orderList.price > buyOrder.price) {
                     break;
                 }
 
-                // Para órdenes límite, verificar el precio
-                if (buyOrder.type() == OrderType.LIMIT &&
-                        bestAsk.getKey() > buyOrder.price()) {
-                    break;
+                OrderEntry sellOrder = orderList.first();
+                long tradeQuantity = Math.min(
+                        buyOrder.remainingQuantity(),
+                        sellOrder.visibleQuantity
+                );
+
+                // Actualizar órdenes en su lugar y notificar la ejecución
+                buyOrder.fill(tradeQuantity);
+                orderList.fill(sellOrder, tradeQuantity);
+                lastPrice = orderList.price;
+                lastQuantity = tradeQuantity;
+                listener.onTrade(sellOrder, buyOrder, orderList.price, tradeQuantity);
+
+                // Actualizar el libro
+                if (sellOrder.isComplete()) {
+                    removeFromBook(asks, sellOrder);
+                } else if (sellOrder.visibleQuantity == 0) {
+                    orderList.replenish(sellOrder);
                 }
+            }
+        }
+
+        private void matchWithBids(OrderEntry sellOrder, MatchListener listener) {
+            while (sellOrder.remainingQuantity() > 0 && !bids.isEmpty()) {
+                OrderList orderList = bids.best();
 
-                OrderList orderList = bestAsk.getValue();
-                Order sellOrder = orderList.orders.getFirst();
+                if (hasLimitPrice(sellOrder) && orderList.price < sellOrder.price) {
+                    break;
+                }
 
+                OrderEntry buyOrder = orderList.first();
                 long tradeQuantity = Math.min(
-                        currentOrder.getRemainingQuantity(),
-                        sellOrder.getRemainingQuantity()
+                        sellOrder.remainingQuantity(),
+                        buyOrder.visibleQuantity
                 );
 
-                Trade trade = Trade.createTrade(
-                        sellOrder,
-                        currentOrder,
-                        bestAsk.getKey(),
-                        tradeQuantity
-                );
+                sellOrder.fill(tradeQuantity);
+                orderList.fill(buyOrder, tradeQuantity);
+                lastPrice = orderList.price;
+                lastQuantity = tradeQuantity;
+                listener.onTrade(buyOrder, sellOrder, orderList.price, tradeQuantity);
 
-                trades.add(trade);
-                logger.debug("Created trade: {}", trade);
+                if (buyOrder.isComplete()) {
+                    removeFromBook(bids, buyOrder);
+                } else if (buyOrder.visibleQuantity == 0) {
+                    orderList.replenish(buyOrder);
+                }
+            }
+        }
 
-                // Actualizar órdenes
-                Order originalSellOrder = sellOrder;
-                Order updatedSellOrder = sellOrder.withFilledQuantity(
-                        sellOrder.filledQuantity() + tradeQuantity
-                );
+        // Un STOP activado se comporta como orden de mercado; STOP_LIMIT respeta su límite
+        private static boolean hasLimitPrice(OrderEntry order) {
+            return order.type != OrderType.MARKET && order.type != OrderType.STOP;
+        }
 
-                currentOrder = currentOrder.withFilledQuantity(
-                        currentOrder.filledQuantity() + tradeQuantity
-                );
+        private void addToBook(OrderEntry entry) {
+            BookSide bookSide = entry.side == OrderSide.BUY ? bids : asks;
+            // Un iceberg solo muestra su porción; el resto queda como reserva oculta
+            entry.visibleQuantity = entry.nextSlice();
+            bookSide.getOrCreate(entry.price).addOrder(entry);
+
+            ordersById.put(entry.orderId, entry);
+            linkTrader(entry);
+            scheduleExpiry(entry);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Added order to book: {}", entry.orderId);
+            }
+        }
 
-                // Actualizar el libro
-                if (updatedSellOrder.isComplete()) {
-                    orderList.removeFirst();
-                    ordersById.remove(updatedSellOrder.orderId());
-                    if (orderList.isEmpty()) {
-                        asks.remove(bestAsk.getKey());
-                    }
-                } else {
-                    orderList.updateFirstOrder(updatedSellOrder, originalSellOrder);
-                    ordersById.put(updatedSellOrder.orderId(),
-                            new OrderInfo(updatedSellOrder));
+        private void scheduleExpiry(OrderEntry entry) {
+            if (entry.expiresAtMillis != 0L) {
+                expiryWheel.schedule(entry, entry.expiresAtMillis, entry.createdAtMillis);
+                if (entry.expiresAtMillis < nextExpiryMillis) {
+                    nextExpiryMillis = entry.expiresAtMillis;
                 }
+            }
+        }
 
-                lastPrice = trade.price();
-                lastQuantity = trade.quantity();
+        // Quita la entrada de su nivel y del índice, y la devuelve al pool
+        private void removeFromBook(BookSide bookSide, OrderEntry entry) {
+            unlink(bookSide, entry);
+            entryPool.release(entry);
+        }
+
+        private void unlink(BookSide bookSide, OrderEntry entry) {
+            OrderList orderList = entry.level;
+            orderList.remove(entry);
+            ordersById.remove(entry.orderId);
+            unlinkTrader(entry);
+            expiryWheel.cancel(entry);
+            if (orderList.isEmpty()) {
+                bookSide.removeLevel(orderList);
             }
+        }
 
-            return currentOrder.getRemainingQuantity() > 0 ? currentOrder : null;
+        private void linkTrader(OrderEntry entry) {
+            OrderEntry head = traderOrders.put(entry.traderId, entry);
+            entry.traderPrev = null;
+            entry.traderNext = head;
+            if (head != null) {
+                head.traderPrev = entry;
+            }
         }
 
-        private Order matchWithBids(Order sellOrder, List<Trade> trades) {
-            Order currentOrder = sellOrder;
+        private void unlinkTrader(OrderEntry entry) {
+            OrderEntry prev = entry.traderPrev;
+            OrderEntry next = entry.traderNext;
+            if (prev != null) {
+                prev.traderNext = next;
+            } else if (next != null) {
+                traderOrders.put(entry.traderId, next);
+            } else {
+                traderOrders.remove(entry.traderId);
+            }
+            if (next != null) {
+                next.traderPrev = prev;
+            }
+            entry.traderPrev = null;
+            entry.traderNext = null;
+        }
 
-            while (currentOrder != null &&
-                    currentOrder.getRemainingQuantity() > 0 &&
-                    !bids.isEmpty()) {
+        private boolean shouldAddToBook(OrderEntry order) {
+            return switch (order.type) {
+                case MARKET, IOC, STOP, FOK -> false;
+                default -> true;
+            };
+        }
 
-                Map.Entry<Double, OrderList> bestBid = bids.firstEntry();
-                if (bestBid == null || bestBid.getValue().isEmpty()) {
-                    break;
+        public boolean amendOrder(long orderId, long newPrice, long newQuantity, MatchListener listener) {
+            beginWrite();
+            try {
+                OrderEntry entry = ordersById.get(orderId);
+                if (entry == null || newQuantity <= entry.filledQuantity || newPrice <= 0) {
+                    return false;
                 }
 
-                if (sellOrder.type() == OrderType.LIMIT &&
-                        bestBid.getKey() < sellOrder.price()) {
-                    break;
+                if (isStop(entry) && !entry.triggered) {
+                    // Un STOP simple se ejecuta a mercado: su precio no se puede modificar
+                    if (entry.type == OrderType.STOP && newPrice != entry.price) {
+                        return false;
+                    }
+                    // Stop pendiente: no está en el libro, se reestaciona con los nuevos valores
+                    unlink(stopSide(entry), entry);
+                    applyAmend(entry, newPrice, newQuantity);
+                    addStop(entry);
+                    listener.onOrderProcessed(entry, true);
+                    return true;
                 }
 
-                OrderList orderList = bestBid.getValue();
-                Order buyOrder = orderList.orders.getFirst();
-
-                long tradeQuantity = Math.min(
-                        currentOrder.getRemainingQuantity(),
-                        buyOrder.getRemainingQuantity()
-                );
-
-                Trade trade = Trade.createTrade(
-                        buyOrder,
-                        currentOrder,
-                        bestBid.getKey(),
-                        tradeQuantity
-                );
+                if (newPrice == entry.price && newQuantity <= entry.quantity) {
+                    // Reducción en el lugar: misma posición en la cola
+                    entry.level.reduce(entry, newQuantity);
+                    applyAmend(entry, newPrice, newQuantity);
+                    listener.onOrderProcessed(entry, true);
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Amended order {} in place", orderId);
+                    }
+                    return true;
+                }
 
-                trades.add(trade);
-                logger.debug("Created trade: {}", trade);
+                // Cambio de precio o aumento: sale del libro y vuelve a entrar como taker
+                unlink(sideOf(entry), entry);
+                applyAmend(entry, newPrice, newQuantity);
+                boolean resting = matchAndRest(entry, listener);
+                listener.onOrderProcessed(entry, resting);
+                if (!resting) {
+                    entryPool.release(entry);
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Amended order {} to {} @ {}", orderId, newQuantity, newPrice);
+                }
+                triggerStops(listener);
+                return true;
+            } finally {
+                endWrite();
+            }
+        }
 
-                Order updatedBuyOrder = buyOrder.withFilledQuantity(
-                        buyOrder.filledQuantity() + tradeQuantity
-                );
+        private static void applyAmend(OrderEntry entry, long newPrice, long newQuantity) {
+            entry.price = newPrice;
+            entry.quantity = newQuantity;
+            entry.displayQuantity = Math.min(entry.displayQuantity, newQuantity);
+            entry.minQuantity = Math.min(entry.minQuantity, newQuantity);
+        }
 
-                currentOrder = currentOrder.withFilledQuantity(
-                        currentOrder.filledQuantity() + tradeQuantity
-                );
+        public void cancelOrder(long orderId) {
+            beginWrite();
+            try {
+                OrderEntry entry = ordersById.get(orderId);
+                if (entry != null) {
+                    removeFromBook(sideOf(entry), entry);
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Cancelled order: {}", orderId);
+                    }
+                }
+            } finally {
+                endWrite();
+            }
+        }
 
-                if (updatedBuyOrder.isComplete()) {
-                    orderList.removeFirst();
-                    ordersById.remove(updatedBuyOrder.orderId());
-                    if (orderList.isEmpty()) {
-                        bids.remove(bestBid.getKey());
+        public int cancelOrders(String traderId, OrderSide side, MatchListener listener) {
+            if (traderId != null && !traderOrders.containsKey(traderId)) {
+                return 0;
+            }
+            beginWrite();
+            try {
+                int cancelled = 0;
+                if (traderId != null) {
+                    OrderEntry entry = traderOrders.get(traderId);
+                    while (entry != null) {
+                        OrderEntry next = entry.traderNext;
+                        if (side == null || entry.side == side) {
+                            cancel(entry, listener);
+                            cancelled++;
+                        }
+                        entry = next;
                     }
                 } else {
-                    orderList.orders.set(0, updatedBuyOrder);
-                    ordersById.put(updatedBuyOrder.orderId(),
-                            new OrderInfo(updatedBuyOrder));
+                    if (side != OrderSide.SELL) {
+                        cancelled += cancelAll(bids, listener) + cancelAll(buyStops, listener);
+                    }
+                    if (side != OrderSide.BUY) {
+                        cancelled += cancelAll(asks, listener) + cancelAll(sellStops, listener);
+                    }
                 }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Mass cancel {} trader={} side={}: {} orders", symbol, traderId, side, cancelled);
+                }
+                return cancelled;
+            } finally {
+                endWrite();
+            }
+        }
 
-                lastPrice = trade.price();
-                lastQuantity = trade.quantity();
+        // Vacía un lado desde el mejor nivel, sin recorrer posiciones vacías
+        private int cancelAll(BookSide bookSide, MatchListener listener) {
+            int cancelled = 0;
+            OrderList level;
+            while ((level = bookSide.best()) != null) {
+                cancel(level.first(), listener);
+                cancelled++;
             }
+            return cancelled;
+        }
 
-            return currentOrder.getRemainingQuantity() > 0 ? currentOrder : null;
+        private void cancel(OrderEntry entry, MatchListener listener) {
+            unlink(sideOf(entry), entry);
+            entry.status = OrderStatus.CANCELLED;
+            listener.onOrderCancelled(entry);
+            entryPool.release(entry);
         }
 
-        private void addToBook(Order order) {
-            if (order.type() == OrderType.MARKET) return;
+        // Lado donde vive una entrada: el índice de stops mientras no se activó
+        private BookSide sideOf(OrderEntry entry) {
+            if (isStop(entry) && !entry.triggered) {
+                return stopSide(entry);
+            }
+            return entry.side == OrderSide.BUY ? bids : asks;
+        }
 
-            var priceMap = order.side() == OrderSide.BUY ? bids : asks;
-            priceMap.computeIfAbsent(order.price(), k -> new OrderList())
-                    .addOrder(order);
+        public void startAuction() {
+            beginWrite();
+            auction = true;
+            endWrite();
+            logger.debug("Auction started for {}", symbol);
+        }
 
-            ordersById.put(order.orderId(), new OrderInfo(order));
-            logger.debug("Added order to book: {}", order);
+        public AuctionResult uncross(long referencePrice, MatchListener listener) {
+            beginWrite();
+            try {
+                AuctionResult result = equilibrium(referencePrice > 0 ? referencePrice : lastPrice);
+                auction = false;
+                if (result.volume() > 0) {
+                    executeAuction(result.price(), listener);
+                    triggerStops(listener);
+                }
+                logger.debug("Uncrossed {}: {}", symbol, result);
+                return result;
+            } finally {
+                endWrite();
+            }
         }
 
-        private boolean shouldAddToBook(Order order) {
-            return switch (order.type()) {
-                case MARKET, IOC -> false;
-                case FOK -> order.filledQuantity() == 0;
-                default -> true;
-            };
+        // Precio de equilibrio en un solo barrido ascendente sobre los niveles agregados
+        // de ambos lados: a cada precio candidato la demanda son las compras con precio
+        // >= p y la oferta las ventas con precio <= p. Gana el mayor volumen, luego el
+        // menor desbalance, luego el más cercano a la referencia y por último el menor precio
+        private AuctionResult equilibrium(long reference) {
+            auctionPrices.clear();
+            auctionQuantities.clear();
+            // Compras de mayor a menor, luego ventas de menor a mayor, con la reserva
+            // oculta de los icebergs incluida: en la subasta se ejecuta todo
+            bids.forEachLevel(this::collectLevel);
+            int bidCount = auctionPrices.size();
+            asks.forEachLevel(this::collectLevel);
+            int askEnd = auctionPrices.size();
+
+            long totalDemand = 0;
+            for (int i = 0; i < bidCount; i++) {
+                totalDemand += auctionQuantities.getLong(i);
+            }
+
+            long bestPrice = 0;
+            long bestVolume = 0;
+            long bestImbalance = 0;
+            long supply = 0;
+            long bidsBelow = 0;
+            int bid = bidCount - 1;     // Compra de menor precio aún no superada
+            int ask = bidCount;         // Próxima venta en orden ascendente
+            while (bid >= 0 || ask < askEnd) {
+                long bidPrice = bid >= 0 ? auctionPrices.getLong(bid) : Long.MAX_VALUE;
+                long askPrice = ask < askEnd ? auctionPrices.getLong(ask) : Long.MAX_VALUE;
+                long price = Math.min(bidPrice, askPrice);
+                if (askPrice == price) {
+                    supply += auctionQuantities.getLong(ask++);
+                }
+                long demand = totalDemand - bidsBelow;
+                long volume = Math.min(demand, supply);
+                long imbalance = demand - supply;
+                if (volume > 0 && isBetterUncross(volume, imbalance, price,
+                        bestVolume, bestImbalance, bestPrice, reference)) {
+                    bestPrice = price;
+                    bestVolume = volume;
+                    bestImbalance = imbalance;
+                }
+                if (bidPrice == price) {
+                    bidsBelow += auctionQuantities.getLong(bid--);
+                }
+            }
+            return new AuctionResult(bestPrice, bestVolume, bestImbalance);
         }
 
-        public void cancelOrder(String orderId) {
-            long stamp = lock.writeLock();
-            try {
-                OrderInfo orderInfo = ordersById.remove(orderId);
-                if (orderInfo != null) {
-                    Order order = orderInfo.order;
-                    var priceMap = order.side() == OrderSide.BUY ? bids : asks;
-                    OrderList orderList = priceMap.get(orderInfo.price);
-                    if (orderList != null) {
-                        orderList.orders.remove(order);
-                        if (orderList.isEmpty()) {
-                            priceMap.remove(orderInfo.price);
-                        }
-                    }
-                    logger.debug("Cancelled order: {}", orderId);
+        private boolean collectLevel(OrderList level) {
+            auctionPrices.addLong(level.price);
+            auctionQuantities.addLong(level.availableQuantity());
+            return true;
+        }
+
+        private static boolean isBetterUncross(long volume, long imbalance, long price,
+                                               long bestVolume, long bestImbalance, long bestPrice,
+                                               long reference) {
+            if (volume != bestVolume) {
+                return volume > bestVolume;
+            }
+            if (Math.abs(imbalance) != Math.abs(bestImbalance)) {
+                return Math.abs(imbalance) < Math.abs(bestImbalance);
+            }
+            // Los candidatos llegan en orden ascendente: ante empate total queda el menor
+            return reference > 0 && Math.abs(price - reference) < Math.abs(bestPrice - reference);
+        }
+
+        // Ejecuta todo lo cruzado al precio de equilibrio respetando precio-tiempo en
+        // cada lado; el volumen resultante es exactamente min(demanda, oferta)
+        private void executeAuction(long price, MatchListener listener) {
+            while (!bids.isEmpty() && !asks.isEmpty()) {
+                OrderList bidLevel = bids.best();
+                OrderList askLevel = asks.best();
+                if (bidLevel.price < price || askLevel.price > price) {
+                    break;
                 }
+
+                OrderEntry buyOrder = bidLevel.first();
+                OrderEntry sellOrder = askLevel.first();
+                long tradeQuantity = Math.min(buyOrder.visibleQuantity, sellOrder.visibleQuantity);
+                bidLevel.fill(buyOrder, tradeQuantity);
+                askLevel.fill(sellOrder, tradeQuantity);
+                lastPrice = price;
+                lastQuantity = tradeQuantity;
+                listener.onTrade(sellOrder, buyOrder, price, tradeQuantity);
+
+                settle(bids, buyOrder);
+                settle(asks, sellOrder);
+            }
+        }
+
+        private void settle(BookSide bookSide, OrderEntry entry) {
+            if (entry.isComplete()) {
+                removeFromBook(bookSide, entry);
+            } else if (entry.visibleQuantity == 0) {
+                entry.level.replenish(entry);
+            }
+        }
+
+        public void expireOrders(long nowMillis, MatchListener listener) {
+            if (expiryWheel.size() == 0) {
+                expiryWheel.advance(nowMillis, expireAction);
+                nextExpiryMillis = Long.MAX_VALUE;
+                return;
+            }
+            beginWrite();
+            try {
+                expiryListener = listener;
+                expiryWheel.advance(nowMillis, expireAction);
             } finally {
-                lock.unlockWrite(stamp);
+                expiryListener = null;
+                nextExpiryMillis = expiryWheel.nextDueMillis();
+                endWrite();
             }
         }
 
-        public BookSnapshot getSnapshot() {
-            long stamp = lock.tryOptimisticRead();
+        public void expireSession(MatchListener listener) {
+            if (expiryWheel.size() == 0) {
+                return;
+            }
+            beginWrite();
             try {
-                List<PriceLevel> bidLevels = new ArrayList<>();
-                bids.forEach((price, orderList) ->
-                        bidLevels.add(new PriceLevel(price, orderList.totalQuantity,
-                                orderList.orders.size())));
-
-                List<PriceLevel> askLevels = new ArrayList<>();
-                asks.forEach((price, orderList) ->
-                        askLevels.add(new PriceLevel(price, orderList.totalQuantity,
-                                orderList.orders.size())));
-
-                return new BookSnapshot(symbol, bidLevels, askLevels,
-                        lastPrice, lastQuantity);
+                expiryListener = listener;
+                expiryWheel.expireAll(expireAction);
             } finally {
-                if (!lock.validate(stamp)) {
-                    stamp = lock.readLock();
-                    try {
-                        return getSnapshot();
-                    } finally {
-                        lock.unlockRead(stamp);
-                    }
-                }
+                expiryListener = null;
+                nextExpiryMillis = expiryWheel.nextDueMillis();
+                endWrite();
+            }
+        }
+
+        private void expire(OrderEntry entry) {
+            unlink(sideOf(entry), entry);
+            entry.status = OrderStatus.EXPIRED;
+            expiryListener.onOrderExpired(entry);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Expired order: {}", entry.orderId);
             }
+            entryPool.release(entry);
+        }
+
+        // Profundidades intermedias (más de MAX_CACHED_DEPTH, sin ser la completa) se
+        // construyen en cada llamada
+        public BookSnapshot getSnapshot(int depth) {
+            boolean full = depth == FULL_DEPTH;
+            boolean cacheable = full || depth <= MAX_CACHED_DEPTH;
+            BookSnapshot cached = full ? fullView : cacheable ? cachedViews.get(depth) : null;
+            if (cached != null && isCurrent(cached.version())) {
+                return cached;
+            }
+
+            BookSnapshot snapshot = readConsistent(stamp -> new BookSnapshot(symbol,
+                    topLevels(bids, depth), topLevels(asks, depth),
+                    lastPrice, lastQuantity, stamp));
+            // Carrera benigna: cualquier vista publicada es consistente con su sello
+            if (full) {
+                fullView = snapshot;
+            } else if (cacheable) {
+                cachedViews.set(depth, snapshot);
+            }
+            return snapshot;
+        }
+
+        // Mientras el matcher escribe (versión impar) la vista previa sigue siendo válida
+        private boolean isCurrent(long snapshotVersion) {
+            long current = version;
+            return current == snapshotVersion || current == snapshotVersion + 1;
+        }
+
+        private static List<PriceLevel> topLevels(BookSide side, int depth) {
+            List<PriceLevel> levels = new ArrayList<>(Math.min(depth, side.levelCount()));
+            side.forEachLevel(orderList -> {
+                levels.add(new PriceLevel(orderList.price, orderList.totalQuantity, orderList.size()));
+                return levels.size() < depth;
+            });
+            return Collections.unmodifiableList(levels);
         }
 
         public BookStatistics getStatistics() {
-            long stamp = lock.tryOptimisticRead();
-            try {
-                double bestBid = bids.isEmpty() ? 0.0 : bids.firstKey();
-                double bestAsk = asks.isEmpty() ? 0.0 : asks.firstKey();
+            return readConsistent(stamp -> {
+                OrderList bestBidLevel = bids.best();
+                OrderList bestAskLevel = asks.best();
+                long bestBid = bestBidLevel == null ? 0L : bestBidLevel.price;
+                long bestAsk = bestAskLevel == null ? 0L : bestAskLevel.price;
 
                 return new BookStatistics(
                         symbol,
-                        bids.size(),
-                        asks.size(),
+                        bids.levelCount(),
+                        asks.levelCount(),
                         bestBid,
                         bestAsk,
                         lastPrice,
                         lastQuantity
                 );
-            } finally {
-                if (!lock.validate(stamp)) {
-                    stamp = lock.readLock();
+            });
+        }
+
+        // Seqlock de un solo escritor: versión impar mientras el matcher modifica el libro
+        private void beginWrite() {
+            version++;
+            VarHandle.storeStoreFence();
+        }
+
+        private void endWrite() {
+            version++;
+        }
+
+        // Los lectores nunca bloquean al matcher: reintentan si la versión cambió
+        // durante la lectura o si vieron un estado intermedio
+        private <T> T readConsistent(LongFunction<T> reader) {
+            while (true) {
+                long stamp = version;
+                if ((stamp & 1L) == 0L) {
                     try {
-                        return getStatistics();
-                    } finally {
-                        lock.unlockRead(stamp);
+                        T result = reader.apply(stamp);
+                        VarHandle.loadLoadFence();
+                        if (version == stamp) {
+                            return result;
+                        }
+                    } catch (RuntimeException e) {
+                        if (version == stamp) {
+                            throw e;
+                        }
                     }
                 }
+                Thread.onSpinWait();
             }
         }
     }
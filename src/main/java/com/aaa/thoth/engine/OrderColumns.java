@@ -0,0 +1,76 @@
+package com.aaa.thoth.engine;
+
+import com.aaa.thoth.core.enums.OrderSide;
+import com.aaa.thoth.core.enums.OrderType;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// Lote de órdenes en columnas (arreglos paralelos de primitivos, enums y strings) para
+// TradingEngine.submitOrders: el gateway lo reutiliza entre lotes de red y el motor
+// codifica cada fila directo en su slot, sin un Order por orden. Precios en ticks
+public final class OrderColumns {
+    private final String[] symbols;
+    private final OrderType[] types;
+    private final OrderSide[] sides;
+    private final long[] prices;
+    private final long[] quantities;
+    private final String[] traderIds;
+    private final String[] clientOrderIds;
+    private int size;
+
+    public OrderColumns(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.symbols = new String[capacity];
+        this.types = new OrderType[capacity];
+        this.sides = new OrderSide[capacity];
+        this.prices = new long[capacity];
+        this.quantities = new long[capacity];
+        this.traderIds = new String[capacity];
+        this.clientOrderIds = new String[capacity];
+    }
+
+    // Devuelve la posición de la orden en el lote, que es también su posición en el resultado
+    public int add(String symbol, OrderType type, OrderSide side, long price, long quantity,
+                   String traderId, String clientOrderId) {
+        if (size == symbols.length) {
+            throw new IllegalStateException("Order columns are full");
+        }
+        int index = size++;
+        symbols[index] = Objects.requireNonNull(symbol, "symbol");
+        types[index] = type;
+        sides[index] = side;
+        prices[index] = price;
+        quantities[index] = quantity;
+        traderIds[index] = traderId;
+        clientOrderIds[index] = clientOrderId;
+        return index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return symbols.length;
+    }
+
+    public String symbol(int index) {
+        return symbols[Objects.checkIndex(index, size)];
+    }
+
+    // Suelta las referencias para reutilizar el lote
+    public void clear() {
+        Arrays.fill(symbols, 0, size, null);
+        Arrays.fill(traderIds, 0, size, null);
+        Arrays.fill(clientOrderIds, 0, size, null);
+        size = 0;
+    }
+
+    void encode(int index, TradingEngine.OrderEvent event) {
+        event.encodeOrder(symbols[index], types[index], sides[index], prices[index], 0L,
+                quantities[index], quantities[index], 0L, traderIds[index], clientOrderIds[index], 0L);
+    }
+}
@@ -0,0 +1,190 @@
+package com.aaa.thoth.engine;
+
+import com.aaa.thoth.core.Order;
+import com.aaa.thoth.core.OrderView;
+import com.aaa.thoth.core.enums.OrderSide;
+import com.aaa.thoth.core.enums.OrderStatus;
+import com.aaa.thoth.core.enums.OrderType;
+
+import java.time.Instant;
+
+// Entrada mutable y reutilizable del libro. Es a la vez el nodo intrusivo de la
+// cola del nivel; los snapshots inmutables (Order) solo se construyen en el borde
+// de la API. Fuera del paquete solo se expone en lectura
+public final class OrderEntry {
+    // Atributos de la orden, copiados al entrar al libro
+    long orderId;
+    String clientOrderId;
+    String symbol;
+    String traderId;
+    String exchangeId;
+    OrderType type;
+    OrderSide side;
+    long price;
+    long stopPrice;
+    long quantity;
+    long filledQuantity;
+    long displayQuantity;
+    long minQuantity;
+    // Cantidad visible en el nivel: todo el remanente, o la porción actual de un iceberg
+    long visibleQuantity;
+    OrderStatus status;
+    long createdAtMillis;
+    long expiresAtMillis;   // 0 = sin vencimiento
+    int priority;
+    // STOP / STOP_LIMIT ya activada; mientras es false vive en el índice de stops
+    boolean triggered;
+
+    // Enlaces intrusivos de la cola del nivel
+    OrderList level;
+    OrderEntry prev;
+    OrderEntry next;
+
+    // Enlaces intrusivos del timing wheel de expiración
+    OrderEntry timerPrev;
+    OrderEntry timerNext;
+    int timerSlot = TimingWheel.UNSCHEDULED;
+    long timerDeadline;     // En ticks del wheel
+
+    // Cadena intrusiva de las órdenes vivas del mismo trader en el libro
+    OrderEntry traderPrev;
+    OrderEntry traderNext;
+
+    void init(OrderView order) {
+        orderId = order.orderId();
+        clientOrderId = order.clientOrderId();
+        symbol = order.symbol();
+        traderId = order.traderId();
+        exchangeId = order.exchangeId();
+        type = order.type();
+        side = order.side();
+        price = order.price();
+        stopPrice = order.stopPrice();
+        quantity = order.quantity();
+        filledQuantity = order.filledQuantity();
+        displayQuantity = order.displayQuantity();
+        minQuantity = order.minQuantity();
+        visibleQuantity = 0L;
+        status = order.status();
+        createdAtMillis = order.createdAtMillis();
+        expiresAtMillis = order.expiresAtMillis();
+        priority = order.priority();
+        triggered = false;
+    }
+
+    public long orderId() {
+        return orderId;
+    }
+
+    public String clientOrderId() {
+        return clientOrderId;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public String traderId() {
+        return traderId;
+    }
+
+    public OrderType type() {
+        return type;
+    }
+
+    public OrderSide side() {
+        return side;
+    }
+
+    public long price() {
+        return price;
+    }
+
+    public long stopPrice() {
+        return stopPrice;
+    }
+
+    public long quantity() {
+        return quantity;
+    }
+
+    public long filledQuantity() {
+        return filledQuantity;
+    }
+
+    public OrderStatus status() {
+        return status;
+    }
+
+    public long remainingQuantity() {
+        return quantity - filledQuantity;
+    }
+
+    public long visibleQuantity() {
+        return visibleQuantity;
+    }
+
+    boolean isIceberg() {
+        return type == OrderType.ICEBERG;
+    }
+
+    // Porción a mostrar al entrar al nivel o al reponer la reserva
+    long nextSlice() {
+        long remaining = remainingQuantity();
+        return isIceberg() ? Math.min(displayQuantity, remaining) : remaining;
+    }
+
+    public boolean isTriggered() {
+        return triggered;
+    }
+
+    public boolean isComplete() {
+        return filledQuantity == quantity;
+    }
+
+    void fill(long fillQuantity) {
+        filledQuantity += fillQuantity;
+        status = isComplete() ? OrderStatus.FILLED : OrderStatus.PARTIALLY_FILLED;
+    }
+
+    // Snapshot inmutable del estado actual
+    public Order toOrder() {
+        return toOrder(Instant.now());
+    }
+
+    Order toOrder(Instant updatedAt) {
+        return toOrder(updatedAt, filledQuantity, status);
+    }
+
+    Order toOrder(Instant updatedAt, long filled, OrderStatus orderStatus) {
+        return new Order(
+                orderId, symbol, type, side, price, stopPrice, quantity, filled,
+                displayQuantity, minQuantity, traderId, orderStatus, exchangeId,
+                Instant.ofEpochMilli(createdAtMillis), updatedAt,
+                expiresAtMillis != 0L ? Instant.ofEpochMilli(expiresAtMillis) : null, priority, clientOrderId
+        );
+    }
+
+    // Limpia referencias antes de volver al pool
+    void reset() {
+        orderId = 0L;
+        clientOrderId = null;
+        symbol = null;
+        traderId = null;
+        exchangeId = null;
+        type = null;
+        side = null;
+        status = null;
+        createdAtMillis = 0L;
+        expiresAtMillis = 0L;
+        triggered = false;
+        level = null;
+        prev = null;
+        next = null;
+        timerPrev = null;
+        timerNext = null;
+        timerSlot = TimingWheel.UNSCHEDULED;
+        traderPrev = null;
+        traderNext = null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.aaa.thoth.engine;
+
+// Pool de entradas del libro; la lista libre reutiliza el enlace next de la
+// propia entrada, así que adquirir y liberar no asignan memoria
+final class OrderEntryPool {
+    static final int DEFAULT_MAX_RETAINED = 64 * 1024;
+
+    private final int maxRetained;
+    private OrderEntry free;
+    private int freeCount;
+
+    OrderEntryPool() {
+        this(DEFAULT_MAX_RETAINED);
+    }
+
+    OrderEntryPool(int maxRetained) {
+        this.maxRetained = maxRetained;
+    }
+
+    OrderEntry acquire() {
+        OrderEntry entry = free;
+        if (entry == null) {
+            return new OrderEntry();
+        }
+        free = entry.next;
+        entry.next = null;
+        freeCount--;
+        return entry;
+    }
+
+    void release(OrderEntry entry) {
+        entry.reset();
+        if (freeCount < maxRetained) {
+            entry.next = free;
+            free = entry;
+            freeCount++;
+        }
+    }
+
+    int freeCount() {
+        return freeCount;
+    }
+}
@@ -0,0 +1,135 @@
+package com.aaa.thoth.engine;
+
+// Cola de órdenes de un nivel de precio (prioridad temporal FIFO), implementada
+// como lista doblemente enlazada intrusiva sobre OrderEntry
+class OrderList {
+    final long price;
+    OrderEntry head;
+    OrderEntry tail;
+    int orderCount;
+    long totalQuantity;     // Cantidad visible
+    long hiddenQuantity;    // Reserva oculta de icebergs, ejecutable pero no visible
+    // Agregado de cantidad ejecutable del lado, si el nivel vive en un ladder denso
+    QuantityTree tree;
+    int slot;
+    private Long key; // Clave boxeada, solo se crea si el nivel vive en un skip list
+
+    OrderList(long price) {
+        this.price = price;
+    }
+
+    Long key() {
+        if (key == null) {
+            key = price;
+        }
+        return key;
+    }
+
+    void addOrder(OrderEntry entry) {
+        entry.level = this;
+        entry.prev = tail;
+        entry.next = null;
+        if (tail == null) {
+            head = entry;
+        } else {
+            tail.next = entry;
+        }
+        tail = entry;
+        orderCount++;
+        totalQuantity += entry.visibleQuantity;
+        hiddenQuantity += entry.remainingQuantity() - entry.visibleQuantity;
+        changed(entry.remainingQuantity());
+    }
+
+    OrderEntry first() {
+        return head;
+    }
+
+    // Desenlaza la orden en O(1), sin importar su posición en la cola
+    void remove(OrderEntry entry) {
+        if (entry.prev == null) {
+            head = entry.next;
+        } else {
+            entry.prev.next = entry.next;
+        }
+        if (entry.next == null) {
+            tail = entry.prev;
+        } else {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.level = null;
+        orderCount--;
+        totalQuantity -= entry.visibleQuantity;
+        hiddenQuantity -= entry.remainingQuantity() - entry.visibleQuantity;
+        changed(-entry.remainingQuantity());
+    }
+
+    // Ejecuta parcialmente una orden en su lugar, manteniendo su posición en la cola.
+    // Solo se ejecuta contra la cantidad visible
+    void fill(OrderEntry entry, long fillQuantity) {
+        entry.fill(fillQuantity);
+        entry.visibleQuantity -= fillQuantity;
+        totalQuantity -= fillQuantity;
+        changed(-fillQuantity);
+    }
+
+    // Reduce la cantidad total de una orden sin moverla de la cola; la reducción
+    // consume primero la reserva oculta
+    void reduce(OrderEntry entry, long newQuantity) {
+        long oldRemaining = entry.remainingQuantity();
+        long oldVisible = entry.visibleQuantity;
+        entry.quantity = newQuantity;
+        long remaining = entry.remainingQuantity();
+        long visible = Math.min(oldVisible, remaining);
+        entry.visibleQuantity = visible;
+        totalQuantity -= oldVisible - visible;
+        hiddenQuantity -= (oldRemaining - oldVisible) - (remaining - visible);
+        changed(remaining - oldRemaining);
+    }
+
+    // Repone la porción visible de un iceberg agotado: la orden pierde prioridad y pasa
+    // al final de la cola sin salir del nivel ni tocar el mapa de precios
+    void replenish(OrderEntry entry) {
+        if (entry != tail) {
+            if (entry.prev == null) {
+                head = entry.next;
+            } else {
+                entry.prev.next = entry.next;
+            }
+            entry.next.prev = entry.prev;
+            entry.prev = tail;
+            entry.next = null;
+            tail.next = entry;
+            tail = entry;
+        }
+        long slice = entry.nextSlice();
+        entry.visibleQuantity = slice;
+        totalQuantity += slice;
+        hiddenQuantity -= slice;
+    }
+
+    // Cantidad ejecutable del nivel, incluida la reserva de los icebergs
+    long availableQuantity() {
+        return totalQuantity + hiddenQuantity;
+    }
+
+    private void changed(long delta) {
+        if (tree != null) {
+            tree.add(slot, delta);
+        }
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+
+    int size() {
+        return orderCount;
+    }
+
+    long getTotalQuantity() {
+        return totalQuantity;
+    }
+}
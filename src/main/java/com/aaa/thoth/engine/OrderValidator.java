@@ -1,40 +1,54 @@
 package com.aaa.thoth.engine;
 
-import com.aaa.thoth.core.Order;
+import com.aaa.thoth.core.InstrumentRegistry;
+import com.aaa.thoth.core.OrderView;
 import com.aaa.thoth.core.enums.OrderType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Instant;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-
 public class OrderValidator {
     private static final Logger logger = LoggerFactory.getLogger(OrderValidator.class);
 
-    // Cache de símbolos válidos
-    private final Set<String> validSymbols = ConcurrentHashMap.newKeySet();
+    private final InstrumentRegistry instruments;
+    // Símbolos habilitados, indexados por ID de símbolo
+    private final boolean[] validSymbols;
 
     // Configuración de límites
     private static final double MAX_ORDER_VALUE = 1_000_000.0; // $1M por orden
     private static final double MIN_ORDER_VALUE = 0.01; // 1 centavo mínimo
     private static final long MAX_ORDER_QUANTITY = 1_000_000; // 1M unidades
     private static final int MAX_ORDERS_PER_SECOND = 100; // Por trader
-    private static final int PRICE_DECIMAL_PLACES = 2;
 
     public OrderValidator() {
+        this(InstrumentRegistry.global());
+    }
+
+    public OrderValidator(InstrumentRegistry instruments) {
+        this.instruments = instruments;
+        this.validSymbols = new boolean[instruments.capacity()];
         // Inicializar símbolos válidos
         initializeValidSymbols();
     }
 
-    public boolean validate(Order order) {
+    public boolean validate(OrderView order) {
+        return validate(order, order != null
+                ? instruments.idOf(order.symbol()) : InstrumentRegistry.UNKNOWN_SYMBOL);
+    }
+
+    public boolean validate(OrderView order, int symbolId) {
+        return validate(order, symbolId, System.currentTimeMillis());
+    }
+
+    // Ruta del motor: el ID del símbolo ya viene resuelto en el evento y el vencimiento
+    // se compara con la hora del evento, no con el reloj: un replay decide lo mismo
+    public boolean validate(OrderView order, int symbolId, long nowMillis) {
         try {
             return validateBasicFields(order) &&
-                    validateSymbol(order) &&
+                    validateSymbol(symbolId) &&
                     validatePrice(order) &&
                     validateQuantity(order) &&
-                    validateOrderValue(order) &&
-                    validateTiming(order) &&
+                    validateOrderValue(order, symbolId) &&
+                    validateTiming(order, nowMillis) &&
                     validateSpecificOrderType(order);
         } catch (Exception e) {
             logger.error("Error validating order: {}", order, e);
@@ -42,52 +56,52 @@ public class OrderValidator {
         }
     }
 
-    private boolean validateBasicFields(Order order) {
+    private boolean validateBasicFields(OrderView order) {
         return order != null &&
-                order.orderId() != null &&
-                !order.orderId().isBlank() &&
+                order.orderId() > 0 &&
+                order.clientOrderId() != null &&
                 order.traderId() != null &&
                 !order.traderId().isBlank() &&
                 order.type() != null &&
                 order.side() != null;
     }
 
-    private boolean validateSymbol(Order order) {
-        return validSymbols.contains(order.symbol());
+    private boolean validateSymbol(int symbolId) {
+        return symbolId >= 0 && symbolId < validSymbols.length && validSymbols[symbolId];
     }
 
-    private boolean validatePrice(Order order) {
+    private boolean validatePrice(OrderView order) {
         // Validar precio según tipo de orden
         if (order.type() == OrderType.MARKET) {
             return true; // Las órdenes de mercado no requieren precio
         }
 
-        // Verificar que el precio tenga los decimales correctos
-        double multiplier = Math.pow(10, PRICE_DECIMAL_PLACES);
-        double normalizedPrice = order.price() * multiplier;
-        if (Math.abs(normalizedPrice - Math.round(normalizedPrice)) > 0.00001) {
-            logger.error("Invalid price decimals for order: {}", order);
-            return false;
-        }
-
+        // Los precios llegan en ticks, la grilla se valida al convertir con PriceScale
         // Validar precio > 0 para órdenes límite
         return order.price() > 0;
     }
 
-    private boolean validateQuantity(Order order) {
+    private boolean validateQuantity(OrderView order) {
         return order.quantity() > 0 &&
                 order.quantity() <= MAX_ORDER_QUANTITY &&
                 order.quantity() == Math.floor(order.quantity()); // Debe ser un número entero
     }
 
-    private boolean validateOrderValue(Order order) {
-        double orderValue = order.price() * order.quantity();
+    // Un STOP sin límite se valora a su precio de activación; una orden de mercado no
+    // tiene precio de referencia y solo la acota el límite de cantidad
+    private boolean validateOrderValue(OrderView order, int symbolId) {
+        long valuePrice = order.price() > 0 ? order.price() : order.stopPrice();
+        if (valuePrice <= 0) {
+            return true;
+        }
+        double orderValue = instruments.scaleOf(symbolId).toPrice(valuePrice) * order.quantity();
         return orderValue >= MIN_ORDER_VALUE && orderValue <= MAX_ORDER_VALUE;
     }
 
-    private boolean validateTiming(Order order) {
+    private boolean validateTiming(OrderView order, long nowMillis) {
         // Validar que la orden no esté expirada
-        if (order.expiresAt() != null && order.expiresAt().isBefore(Instant.now())) {
+        long expiresAt = order.expiresAtMillis();
+        if (expiresAt != 0L && expiresAt < nowMillis) {
             logger.error("Order expired: {}", order);
             return false;
         }
@@ -96,7 +110,7 @@ public class OrderValidator {
         return validateRateLimit(order.traderId());
     }
 
-    private boolean validateSpecificOrderType(Order order) {
+    private boolean validateSpecificOrderType(OrderView order) {
         return switch (order.type()) {
             case MARKET -> validateMarketOrder(order);
             case LIMIT -> validateLimitOrder(order);
@@ -107,29 +121,29 @@ public class OrderValidator {
         };
     }
 
-    private boolean validateMarketOrder(Order order) {
+    private boolean validateMarketOrder(OrderView order) {
         // Las órdenes de mercado no requieren precio
         return true;
     }
 
-    private boolean validateLimitOrder(Order order) {
+    private boolean validateLimitOrder(OrderView order) {
         return order.price() > 0;
     }
 
-    private boolean validateStopOrder(Order order) {
+    private boolean validateStopOrder(OrderView order) {
         return order.stopPrice() > 0 &&
                 (order.type() != OrderType.STOP_LIMIT || order.price() > 0);
     }
 
-    private boolean validateIocOrder(Order order) {
+    private boolean validateIocOrder(OrderView order) {
         return order.price() > 0;
     }
 
-    private boolean validateFokOrder(Order order) {
+    private boolean validateFokOrder(OrderView order) {
         return order.price() > 0;
     }
 
-    private boolean validateIcebergOrder(Order order) {
+    private boolean validateIcebergOrder(OrderView order) {
         return order.price() > 0 &&
                 order.displayQuantity() > 0 &&
                 order.displayQuantity() <= order.quantity();
@@ -137,12 +151,16 @@ public class OrderValidator {
 
     private void initializeValidSymbols() {
         // Aquí se cargarían los símbolos válidos desde una configuración o base de datos
-        validSymbols.add("AAPL");
-        validSymbols.add("GOOGL");
-        validSymbols.add("MSFT");
+        addValidSymbol("AAPL");
+        addValidSymbol("GOOGL");
+        addValidSymbol("MSFT");
         // etc.
     }
 
+    private void addValidSymbol(String symbol) {
+        validSymbols[instruments.register(symbol)] = true;
+    }
+
     private boolean validateRateLimit(String traderId) {
         // Implementar rate limiting por trader
         return true; // Implementación simplificada
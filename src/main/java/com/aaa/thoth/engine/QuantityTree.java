@@ -0,0 +1,40 @@
+package com.aaa.thoth.engine;
+
+import java.util.Arrays;
+
+// Árbol de Fenwick sobre las posiciones de un ladder: mantiene la cantidad ejecutable
+// acumulada para responder sumas por rango de precios en O(log n)
+final class QuantityTree {
+    private final long[] tree;
+
+    QuantityTree(int size) {
+        this.tree = new long[size + 1];
+    }
+
+    void add(int index, long delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Suma de las posiciones [0, index]
+    long prefixSum(int index) {
+        long sum = 0;
+        for (int i = index + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // Suma de las posiciones [from, to]
+    long rangeSum(int from, int to) {
+        if (to < from) {
+            return 0L;
+        }
+        return prefixSum(to) - (from > 0 ? prefixSum(from - 1) : 0L);
+    }
+
+    void clear() {
+        Arrays.fill(tree, 0L);
+    }
+}
@@ -0,0 +1,9 @@
+package com.aaa.thoth.engine;
+
+// Motivo por el que una etapa previa al matching rechazó una orden
+public enum RejectReason {
+    INVALID_ORDER,      // Falló la validación de campos, precio, cantidad o tipo
+    UNKNOWN_SYMBOL,     // Símbolo sin ID en el registro de instrumentos
+    RISK_LIMIT,         // Superó un límite de riesgo del trader o del símbolo
+    INTERNAL_ERROR      // Excepción inesperada al evaluar la orden
+}
@@ -1,6 +1,7 @@
 package com.aaa.thoth.engine;
 
-import com.aaa.thoth.core.Order;
+import com.aaa.thoth.core.InstrumentRegistry;
+import com.aaa.thoth.core.OrderView;
 import com.aaa.thoth.core.enums.OrderSide;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,23 +22,42 @@ public class RiskManager {
     private static final double MAX_SYMBOL_POSITION = 1_000_000.0; // $1M por símbolo
     private static final double MAX_PRICE_DEVIATION = 0.10; // 10% máximo de desviación
 
-    // Tracking de posiciones
+    private final InstrumentRegistry instruments;
+
+    // Tracking de posiciones; las posiciones por símbolo se indexan por ID de símbolo
     private final Map<String, TraderPosition> traderPositions = new ConcurrentHashMap<>();
-    private final Map<String, SymbolPosition> symbolPositions = new ConcurrentHashMap<>();
+    private final SymbolPosition[] symbolPositions;
 
     // Clase para tracking de posición por trader
     private static class TraderPosition {
         final DoubleAdder buyValue = new DoubleAdder();
         final DoubleAdder sellValue = new DoubleAdder();
         final DoubleAdder netPosition = new DoubleAdder();
-        final Map<String, DoubleAdder> symbolPositions = new ConcurrentHashMap<>();
+        final DoubleAdder[] symbolPositions;
+
+        TraderPosition(int symbolCapacity) {
+            this.symbolPositions = new DoubleAdder[symbolCapacity];
+        }
 
         double getNetValue() {
             return netPosition.sum();
         }
 
-        void updatePosition(Order order) {
-            double orderValue = order.price() * order.quantity();
+        DoubleAdder symbolPosition(int symbolId) {
+            DoubleAdder position = symbolPositions[symbolId];
+            if (position == null) {
+                synchronized (this) {
+                    position = symbolPositions[symbolId];
+                    if (position == null) {
+                        position = new DoubleAdder();
+                        symbolPositions[symbolId] = position;
+                    }
+                }
+            }
+            return position;
+        }
+
+        void updatePosition(OrderView order, int symbolId, double orderValue) {
             if (order.side() == OrderSide.BUY) {
                 buyValue.add(orderValue);
                 netPosition.add(orderValue);
@@ -46,38 +66,78 @@ public class RiskManager {
                 netPosition.add(-orderValue);
             }
 
-            symbolPositions.computeIfAbsent(order.symbol(), k -> new DoubleAdder())
-                    .add(order.side() == OrderSide.BUY ? orderValue : -orderValue);
+            symbolPosition(symbolId).add(order.side() == OrderSide.BUY ? orderValue : -orderValue);
         }
     }
 
     // Clase para tracking de posición por símbolo
     private static class SymbolPosition {
         final DoubleAdder totalValue = new DoubleAdder();
-        volatile double lastPrice;
+        volatile long lastPrice; // En ticks
         volatile long lastUpdateTime;
 
-        void updatePosition(double value, double price) {
+        void updatePosition(double value, long price) {
             totalValue.add(value);
             lastPrice = price;
             lastUpdateTime = System.currentTimeMillis();
         }
     }
 
-    public boolean checkRisk(Order order) {
+    public RiskManager() {
+        this(InstrumentRegistry.global());
+    }
+
+    public RiskManager(InstrumentRegistry instruments) {
+        this.instruments = instruments;
+        this.symbolPositions = new SymbolPosition[instruments.capacity()];
+    }
+
+    public boolean checkRisk(OrderView order) {
+        return checkRisk(order, instruments.idOf(order.symbol()));
+    }
+
+    // Ruta del motor: el ID del símbolo ya viene resuelto en el evento
+    public boolean checkRisk(OrderView order, int symbolId) {
+        if (symbolId < 0 || symbolId >= symbolPositions.length) {
+            logger.error("Unknown symbol in risk check: {}", order.symbol());
+            return false;
+        }
         try {
-            return validateSingleOrderRisk(order) &&
-                    validateTraderRisk(order) &&
-                    validateSymbolRisk(order) &&
-                    validatePriceDeviation(order);
+            double orderValue = orderValue(order, symbolId);
+            return validateSingleOrderRisk(orderValue) &&
+                    validateTraderRisk(order, symbolId, orderValue) &&
+                    validateSymbolRisk(order, symbolId, orderValue) &&
+                    validatePriceDeviation(order, symbolId);
         } catch (Exception e) {
             logger.error("Error in risk check for order: {}", order, e);
             return false;
         }
     }
 
-    private boolean validateSingleOrderRisk(Order order) {
-        double orderValue = order.price() * order.quantity();
+    private double orderValue(OrderView order, int symbolId) {
+        return instruments.scaleOf(symbolId).toPrice(order.price()) * order.quantity();
+    }
+
+    private TraderPosition traderPosition(String traderId) {
+        return traderPositions.computeIfAbsent(traderId,
+                k -> new TraderPosition(symbolPositions.length));
+    }
+
+    private SymbolPosition symbolPosition(int symbolId) {
+        SymbolPosition position = symbolPositions[symbolId];
+        if (position == null) {
+            synchronized (symbolPositions) {
+                position = symbolPositions[symbolId];
+                if (position == null) {
+                    position = new SymbolPosition();
+                    symbolPositions[symbolId] = position;
+                }
+            }
+        }
+        return position;
+    }
+
+    private boolean validateSingleOrderRisk(double orderValue) {
         if (orderValue > MAX_SINGLE_ORDER_VALUE) {
             logger.error("Order value {} exceeds maximum allowed {}",
                     orderValue, MAX_SINGLE_ORDER_VALUE);
@@ -86,13 +146,12 @@ public class RiskManager {
         return true;
     }
 
-    private boolean validateTraderRisk(Order order) {
-        TraderPosition position = traderPositions.computeIfAbsent(
-                order.traderId(), k -> new TraderPosition());
+    private boolean validateTraderRisk(OrderView order, int symbolId, double orderValue) {
+        TraderPosition position = traderPosition(order.traderId());
 
         // Verificar posición total
         double potentialPosition = position.getNetValue() +
-                (order.side() == OrderSide.BUY ? 1 : -1) * order.price() * order.quantity();
+                (order.side() == OrderSide.BUY ? 1 : -1) * orderValue;
 
         if (Math.abs(potentialPosition) > MAX_POSITION_VALUE) {
             logger.error("Trader position would exceed maximum allowed: {}",
@@ -101,10 +160,9 @@ public class RiskManager {
         }
 
         // Verificar posición por símbolo
-        DoubleAdder symbolPosition = position.symbolPositions
-                .computeIfAbsent(order.symbol(), k -> new DoubleAdder());
+        DoubleAdder symbolPosition = position.symbolPosition(symbolId);
         double potentialSymbolPosition = symbolPosition.sum() +
-                (order.side() == OrderSide.BUY ? 1 : -1) * order.price() * order.quantity();
+                (order.side() == OrderSide.BUY ? 1 : -1) * orderValue;
 
         if (Math.abs(potentialSymbolPosition) > MAX_SYMBOL_POSITION) {
             logger.error("Symbol position would exceed maximum allowed: {}",
@@ -115,11 +173,9 @@ public class RiskManager {
         return true;
     }
 
-    private boolean validateSymbolRisk(Order order) {
-        SymbolPosition position = symbolPositions.computeIfAbsent(
-                order.symbol(), k -> new SymbolPosition());
+    private boolean validateSymbolRisk(OrderView order, int symbolId, double orderValue) {
+        SymbolPosition position = symbolPosition(symbolId);
 
-        double orderValue = order.price() * order.quantity();
         double potentialValue = position.totalValue.sum() +
                 (order.side() == OrderSide.BUY ? 1 : -1) * orderValue;
 
@@ -132,10 +188,12 @@ public class RiskManager {
         return true;
     }
 
-    private boolean validatePriceDeviation(Order order) {
-        SymbolPosition position = symbolPositions.get(order.symbol());
-        if (position != null && position.lastPrice > 0) {
-            double priceDeviation = Math.abs(order.price() - position.lastPrice) /
+    private boolean validatePriceDeviation(OrderView order, int symbolId) {
+        SymbolPosition position = symbolPositions[symbolId];
+        // Sin precio (mercado, stop) no hay desviación que medir
+        if (position != null && position.lastPrice > 0 && order.price() > 0) {
+            // La desviación relativa se calcula directamente en ticks
+            double priceDeviation = (double) Math.abs(order.price() - position.lastPrice) /
                     position.lastPrice;
 
             if (priceDeviation > MAX_PRICE_DEVIATION) {
@@ -148,17 +206,16 @@ public class RiskManager {
     }
 
     // Métodos para actualizar posiciones después de trades
-    public void updatePositions(Order order) {
+    public void updatePositions(OrderView order) {
+        int symbolId = instruments.register(order.symbol());
+        double orderValue = orderValue(order, symbolId);
+
         // Actualizar posición del trader
-        TraderPosition traderPosition = traderPositions.computeIfAbsent(
-                order.traderId(), k -> new TraderPosition());
-        traderPosition.updatePosition(order);
+        traderPosition(order.traderId()).updatePosition(order, symbolId, orderValue);
 
         // Actualizar posición del símbolo
-        SymbolPosition symbolPosition = symbolPositions.computeIfAbsent(
-                order.symbol(), k -> new SymbolPosition());
-        symbolPosition.updatePosition(
-                (order.side() == OrderSide.BUY ? 1 : -1) * order.price() * order.quantity(),
+        symbolPosition(symbolId).updatePosition(
+                (order.side() == OrderSide.BUY ? 1 : -1) * orderValue,
                 order.price()
         );
     }
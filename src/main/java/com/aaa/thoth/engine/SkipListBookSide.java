@@ -0,0 +1,122 @@
+package com.aaa.thoth.engine;
+
+import org.agrona.collections.Long2ObjectHashMap;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+// Lado del libro sobre skip list ordenado, adecuado para libros dispersos
+class SkipListBookSide implements BookSide {
+    private final boolean isBid;
+    private final ConcurrentSkipListMap<Long, OrderList> levels;
+    // Índice primitivo precio -> nivel, evita boxear en cada búsqueda
+    private final Long2ObjectHashMap<OrderList> levelsByPrice;
+
+    SkipListBookSide(boolean isBid) {
+        this.isBid = isBid;
+        this.levels = isBid
+                ? new ConcurrentSkipListMap<>(Comparator.reverseOrder())
+                : new ConcurrentSkipListMap<>();
+        this.levelsByPrice = new Long2ObjectHashMap<>();
+    }
+
+    @Override
+    public OrderList best() {
+        return levels.isEmpty() ? null : levelsByPrice.get(levels.firstKey().longValue());
+    }
+
+    @Override
+    public OrderList get(long price) {
+        return levelsByPrice.get(price);
+    }
+
+    @Override
+    public OrderList getOrCreate(long price) {
+        OrderList level = levelsByPrice.get(price);
+        if (level == null) {
+            level = new OrderList(price);
+            add(level);
+        }
+        return level;
+    }
+
+    // Inserta un nivel ya existente (usado al migrar niveles desde otro almacenamiento)
+    void add(OrderList level) {
+        levelsByPrice.put(level.price, level);
+        levels.put(level.key(), level);
+    }
+
+    @Override
+    public void removeLevel(OrderList level) {
+        levels.remove(level.key());
+        levelsByPrice.remove(level.price);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return levels.isEmpty();
+    }
+
+    @Override
+    public int levelCount() {
+        return levelsByPrice.size();
+    }
+
+    @Override
+    public void forEachLevel(Predicate<OrderList> visitor) {
+        for (OrderList level : levels.values()) {
+            if (!visitor.test(level)) {
+                return;
+            }
+        }
+    }
+
+    // Recorre solo los niveles con precio en [fromPrice, toPrice) en orden de prioridad.
+    // Devuelve false si el visitor cortó el recorrido
+    boolean forEachLevelBetween(long fromPrice, long toPrice, Predicate<OrderList> visitor) {
+        if (toPrice <= fromPrice || levels.isEmpty()) {
+            return true;
+        }
+        var range = isBid
+                ? levels.subMap(toPrice - 1, true, fromPrice, true)
+                : levels.subMap(fromPrice, true, toPrice - 1, true);
+        for (OrderList level : range.values()) {
+            if (!visitor.test(level)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long availableQuantity(long limitPrice, long target) {
+        return isBid
+                ? availableQuantityBetween(limitPrice, Long.MAX_VALUE, target)
+                : availableQuantityBetween(Long.MIN_VALUE, limitPrice == Long.MAX_VALUE ? limitPrice : limitPrice + 1, target);
+    }
+
+    // Suma la cantidad ejecutable de los niveles en [fromPrice, toPrice), del mejor al
+    // peor, cortando en cuanto alcanza target
+    long availableQuantityBetween(long fromPrice, long toPrice, long target) {
+        if (toPrice <= fromPrice || levels.isEmpty()) {
+            return 0L;
+        }
+        var range = isBid
+                ? levels.subMap(toPrice - 1, true, fromPrice, true)
+                : levels.subMap(fromPrice, true, toPrice - 1, true);
+        long total = 0L;
+        for (OrderList level : range.values()) {
+            total += level.availableQuantity();
+            if (total >= target) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public boolean isBetter(long a, long b) {
+        return isBid ? a > b : a < b;
+    }
+}
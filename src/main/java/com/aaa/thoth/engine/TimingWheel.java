@@ -0,0 +1,199 @@
+package com.aaa.thoth.engine;
+
+import java.util.function.Consumer;
+
+// Timing wheel jerárquico de expiración, propiedad del hilo matcher. Cinco niveles de
+// 64 ranuras cubren ~124 días con ticks de 10 ms; plazos más lejanos quedan en el
+// último nivel y se reubican al cascadear. Las entradas se enlazan de forma
+// intrusiva, así que programar y cancelar son O(1) y no crean objetos
+final class TimingWheel {
+    static final int UNSCHEDULED = -1;
+    static final long DEFAULT_TICK_MILLIS = 10L;
+
+    private static final int LEVELS = 5;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long MAX_DELTA = (1L << (LEVELS * SLOT_BITS)) - 1;
+
+    private final long tickMillis;
+    private final OrderEntry[] slots = new OrderEntry[LEVELS * SLOTS];
+    private long currentTick;   // Próximo tick a procesar
+    private int size;
+
+    TimingWheel() {
+        this(DEFAULT_TICK_MILLIS);
+    }
+
+    TimingWheel(long tickMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+    }
+
+    // Programa la expiración; nunca dispara antes del plazo (redondea hacia arriba)
+    void schedule(OrderEntry entry, long deadlineMillis, long nowMillis) {
+        if (size == 0) {
+            // Wheel vacío: puede alinearse con el reloj sin recorrer ticks intermedios
+            currentTick = Math.max(currentTick, nowMillis / tickMillis);
+        }
+        entry.timerDeadline = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        insert(entry);
+        size++;
+    }
+
+    void cancel(OrderEntry entry) {
+        if (entry.timerSlot != UNSCHEDULED) {
+            unlink(entry);
+            size--;
+        }
+    }
+
+    // Procesa los ticks hasta nowMillis y entrega las entradas vencidas. Salta directo
+    // a la próxima ranura ocupada o borde de cascada: tras un hueco largo sin ticks el
+    // costo depende de las entradas, no del tiempo transcurrido
+    void advance(long nowMillis, Consumer<OrderEntry> expired) {
+        long target = nowMillis / tickMillis;
+        while (size > 0) {
+            long dueTick = nextDueTick();
+            if (dueTick > target) {
+                break;
+            }
+            currentTick = Math.max(currentTick, dueTick);
+            cascade();
+            int slot = (int) (currentTick & SLOT_MASK);
+            OrderEntry entry = detachSlot(slot);
+            while (entry != null) {
+                OrderEntry next = entry.timerNext;
+                entry.timerNext = null;
+                if (entry.timerDeadline <= currentTick) {
+                    size--;
+                    expired.accept(entry);
+                } else {
+                    insert(entry);
+                }
+                entry = next;
+            }
+            currentTick++;
+        }
+        currentTick = Math.max(currentTick, target + 1);
+    }
+
+    // Vence de una vez todas las entradas programadas (cierre de sesión)
+    void expireAll(Consumer<OrderEntry> expired) {
+        for (int slot = 0; slot < slots.length; slot++) {
+            OrderEntry entry = detachSlot(slot);
+            while (entry != null) {
+                OrderEntry next = entry.timerNext;
+                entry.timerNext = null;
+                size--;
+                expired.accept(entry);
+                entry = next;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Cota inferior, en ms, del próximo vencimiento; Long.MAX_VALUE si no hay entradas.
+    // En el nivel 0 cada ranura es un tick exacto; en los superiores vale el inicio del
+    // rango de la primera ranura ocupada, que se precisa al cascadear
+    long nextDueMillis() {
+        return size == 0 ? Long.MAX_VALUE : nextDueTick() * tickMillis;
+    }
+
+    // Próximo tick con trabajo: una ranura ocupada del nivel 0 o el borde donde cascadea
+    // la primera ranura ocupada de un nivel superior
+    private long nextDueTick() {
+        long dueTick = Long.MAX_VALUE;
+        for (int i = 0; i < SLOTS; i++) {
+            if (slots[(int) ((currentTick + i) & SLOT_MASK)] != null) {
+                dueTick = currentTick + i;
+                break;
+            }
+        }
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            long base = currentTick >> shift;
+            // El rango actual ya se cascadeó salvo que currentTick esté justo en su borde
+            int first = (currentTick & ((1L << shift) - 1)) == 0 ? 0 : 1;
+            for (int i = first; i <= SLOTS; i++) {
+                long range = base + i;
+                if (slots[level * SLOTS + (int) (range & SLOT_MASK)] != null) {
+                    dueTick = Math.min(dueTick, range << shift);
+                    break;
+                }
+            }
+        }
+        return dueTick;
+    }
+
+    // Al cruzar el borde de una ranura de nivel superior, redistribuye sus entradas
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            long shifted = currentTick >> (SLOT_BITS * (level - 1));
+            if ((shifted & SLOT_MASK) != 0) {
+                return;
+            }
+            int slot = level * SLOTS + (int) ((currentTick >> (SLOT_BITS * level)) & SLOT_MASK);
+            OrderEntry entry = detachSlot(slot);
+            while (entry != null) {
+                OrderEntry next = entry.timerNext;
+                entry.timerNext = null;
+                insert(entry);
+                entry = next;
+            }
+        }
+    }
+
+    private void insert(OrderEntry entry) {
+        long deadline = Math.max(entry.timerDeadline, currentTick);
+        long delta = deadline - currentTick;
+        if (delta > MAX_DELTA) {
+            deadline = currentTick + MAX_DELTA;
+            delta = MAX_DELTA;
+        }
+        int level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = level * SLOTS + (int) ((deadline >> (SLOT_BITS * level)) & SLOT_MASK);
+
+        OrderEntry head = slots[slot];
+        entry.timerPrev = null;
+        entry.timerNext = head;
+        if (head != null) {
+            head.timerPrev = entry;
+        }
+        slots[slot] = entry;
+        entry.timerSlot = slot;
+    }
+
+    private void unlink(OrderEntry entry) {
+        if (entry.timerPrev == null) {
+            slots[entry.timerSlot] = entry.timerNext;
+        } else {
+            entry.timerPrev.timerNext = entry.timerNext;
+        }
+        if (entry.timerNext != null) {
+            entry.timerNext.timerPrev = entry.timerPrev;
+        }
+        entry.timerPrev = null;
+        entry.timerNext = null;
+        entry.timerSlot = UNSCHEDULED;
+    }
+
+    // Vacía la ranura y devuelve su lista, ya marcada como no programada
+    private OrderEntry detachSlot(int slot) {
+        OrderEntry head = slots[slot];
+        slots[slot] = null;
+        for (OrderEntry entry = head; entry != null; entry = entry.timerNext) {
+            entry.timerPrev = null;
+            entry.timerSlot = UNSCHEDULED;
+        }
+        return head;
+    }
+}
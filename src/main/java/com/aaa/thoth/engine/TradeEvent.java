@@ -0,0 +1,79 @@
+package com.aaa.thoth.engine;
+
+import com.aaa.thoth.core.enums.OrderSide;
+
+// Slot reutilizable del ring de trades; lo escribe el matcher y lo leen los
+// consumidores aguas abajo. Solo es válido durante la llamada al handler
+public final class TradeEvent {
+    private long tradeId;
+    private String symbol;
+    private long price;
+    private long quantity;
+    private long makerOrderId;
+    private String makerTraderId;
+    private long takerOrderId;
+    private String takerTraderId;
+    private OrderSide takerSide;
+    private long timestamp;
+
+    void set(long tradeId, OrderEntry maker, OrderEntry taker, long price, long quantity, long timestamp) {
+        this.tradeId = tradeId;
+        this.symbol = maker.symbol;
+        this.price = price;
+        this.quantity = quantity;
+        this.makerOrderId = maker.orderId;
+        this.makerTraderId = maker.traderId;
+        this.takerOrderId = taker.orderId;
+        this.takerTraderId = taker.traderId;
+        this.takerSide = taker.side;
+        this.timestamp = timestamp;
+    }
+
+    public long tradeId() {
+        return tradeId;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    // Precio en ticks
+    public long price() {
+        return price;
+    }
+
+    public long quantity() {
+        return quantity;
+    }
+
+    public long makerOrderId() {
+        return makerOrderId;
+    }
+
+    public String makerTraderId() {
+        return makerTraderId;
+    }
+
+    public long takerOrderId() {
+        return takerOrderId;
+    }
+
+    public String takerTraderId() {
+        return takerTraderId;
+    }
+
+    // Lado agresor
+    public OrderSide takerSide() {
+        return takerSide;
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TradeEvent{id=%d, %s %d@%d, maker=%d, taker=%d}",
+                tradeId, symbol, quantity, price, makerOrderId, takerOrderId);
+    }
+}
@@ -1,29 +1,66 @@
 package com.aaa.thoth.engine;
 
+import com.aaa.thoth.core.IdGenerator;
+import com.aaa.thoth.core.InstrumentRegistry;
 import com.aaa.thoth.core.Order;
-import com.aaa.thoth.core.Trade;
+import com.aaa.thoth.core.OrderView;
+import com.aaa.thoth.core.SequenceIdGenerator;
+import com.aaa.thoth.core.enums.OrderSide;
 import com.aaa.thoth.core.enums.OrderStatus;
+import com.aaa.thoth.core.enums.OrderType;
 import com.lmax.disruptor.*;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TradingEngine {
     private static final Logger logger = LoggerFactory.getLogger(TradingEngine.class);
-    private static final int RING_BUFFER_SIZE = 1024 * 64; // Debe ser potencia de 2
+    private static final int ALL_SHARDS = -1;
+    // Evento sin shard destino: ningún matcher lo procesa
+    private static final int NO_SHARD = -2;
 
     private final AtomicBoolean isRunning;
+    private final EngineConfig config;
+    private final InstrumentRegistry instruments;
     private final OrderValidator orderValidator;
     private final RiskManager riskManager;
-    private final OrderBook orderBook;
+    // Un libro por shard; cada shard tiene un único hilo matcher dueño de sus símbolos
+    private final OrderBook[] shardBooks;
     private final Disruptor<OrderEvent> disruptor;
     private final RingBuffer<OrderEvent> ringBuffer;
-    private final ExecutorService executorService;
-    private final ConcurrentMap<String, CompletableFuture<Order>> orderResults;
+    // Ring de salida: los matchers publican reportes y un único hilo los entrega a las sesiones
+    private final Disruptor<ExecutionReport> reportDisruptor;
+    private final RingBuffer<ExecutionReport> reports;
+    private final ConcurrentHashMap<String, ExecutionReportListener> sessions;
+    private volatile boolean hasSessions;
+    // Ring de trades: notificación, market data y persistencia consumen en paralelo,
+    // desacoplados del matcher
+    private final Disruptor<TradeEvent> tradeDisruptor;
+    private final RingBuffer<TradeEvent> trades;
+    private final AdmissionControl admission;
+    // Publica en el ring los ticks de expiración; el reloj de los libros es el del evento
+    private final ScheduledExecutorService timerScheduler;
+    private final IdGenerator orderIds;
+    // Marca de inicio común a los generadores de trade IDs de cada shard
+    private final long tradeIdStartMillis;
+    // Journal de comandos de entrada; null si no está configurado
+    private final EventJournal journal;
+    // Durante el replay del constructor no se emiten trades ni reportes: ya salieron
+    // antes de la caída. Los hilos de los rings lo ven en false al arrancar
+    private boolean replaying;
 
     public OrderBook.BookStatistics getBookStatistics(String symbol) {
         if (!isRunning.get()) {
@@ -32,68 +69,768 @@ public class TradingEngine {
         }
 
         try {
-            return orderBook.getStatistics(symbol);
+            OrderBook book = bookFor(symbol);
+            return book != null ? book.getStatistics(symbol) : null;
         } catch (Exception e) {
             logger.error("Error getting book statistics for symbol {}: {}", symbol, e.getMessage());
             return null;
         }
     }
 
-    // Event para el Disruptor
-    public static class OrderEvent {
-        private Order order;
-        private String correlationId;
+    public enum EventType {
+        ORDER,              // Orden nueva
+        AMEND,              // Cancel/replace de una orden viva
+        EXPIRE_TIMERS,      // Tick del timing wheel: vence las órdenes hasta timestamp
+        EXPIRE_SESSION,     // Cierre de sesión: vence todas las órdenes con vencimiento
+        MASS_CANCEL,        // Cancelación masiva por trader, símbolo y/o lado
+        AUCTION_START,      // Abre la subasta del símbolo
+        UNCROSS             // Cierra la subasta al precio de equilibrio
+    }
+
+    // Slot del ring con la orden en campos planos (primitivos, enums y strings ya
+    // existentes): el gateway codifica directo en el slot y validación, riesgo y el
+    // libro lo leen como OrderView, sin un Order intermedio. El resultado viaja con
+    // el evento, sin índice por orderId
+    public static class OrderEvent implements OrderView {
+        private EventType eventType;
+        private long timestamp;
+        // Orden (ORDER); orderId también identifica la orden de un AMEND
+        private long orderId;
+        private String clientOrderId;
+        private String symbol;
+        private OrderType orderType;
+        private OrderSide side;
+        private long price;
+        private long stopPrice;
+        private long quantity;
+        private long displayQuantity;
+        private long minQuantity;
+        private String traderId;
+        private String exchangeId;
+        private int priority;
+        private long createdAtMillis;
+        private long expiresAtMillis;
+
+        private CompletableFuture<Order> result;
+        // Orden de un lote: el resultado va a la posición batchIndex del lote
+        private OrderBatch batch;
+        private int batchIndex;
+        // Cada etapa previa escribe solo su campo: corren en paralelo sobre el mismo evento
+        private RejectReason validationReject;
+        private RejectReason riskReject;
+        // El evento no está en el journal (falló la escritura, o el productor ya lo
+        // rechazó y no debe persistirse): no puede modificar ningún libro
+        private RejectReason journalReject;
+        // Entró por trySubmit: ocupa cuota de su trader hasta llegar al matcher
+        private boolean admitted;
+        // ID denso del símbolo, resuelto una sola vez al entrar la orden
+        private int symbolId;
+        private int shard;
+        // Parámetros de AMEND
+        private long newPrice;
+        private long newQuantity;
+        // Parámetros de MASS_CANCEL (más traderId y side)
+        private MassCancel massCancel;
+        // Parámetros de AUCTION_START y UNCROSS
+        private long referencePrice;
+        private CompletableFuture<OrderBook.AuctionResult> auctionResult;
+
+        // Codificación directa desde el gateway; orderId, símbolo y shard los resuelve el motor
+        public void encodeOrder(String symbol, OrderType orderType, OrderSide side, long price, long stopPrice,
+                                long quantity, long displayQuantity, long minQuantity, String traderId,
+                                String clientOrderId, long expiresAtMillis) {
+            this.symbol = symbol;
+            this.orderType = orderType;
+            this.side = side;
+            this.price = price;
+            this.stopPrice = stopPrice;
+            this.quantity = quantity;
+            this.displayQuantity = displayQuantity;
+            this.minQuantity = minQuantity;
+            this.traderId = traderId;
+            this.clientOrderId = clientOrderId;
+            this.exchangeId = null;
+            this.priority = 0;
+            this.createdAtMillis = System.currentTimeMillis();
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private void copyOrder(Order order) {
+            this.orderId = order.orderId();
+            this.clientOrderId = order.clientOrderId();
+            this.symbol = order.symbol();
+            this.orderType = order.type();
+            this.side = order.side();
+            this.price = order.price();
+            this.stopPrice = order.stopPrice();
+            this.quantity = order.quantity();
+            this.displayQuantity = order.displayQuantity();
+            this.minQuantity = order.minQuantity();
+            this.traderId = order.traderId();
+            this.exchangeId = order.exchangeId();
+            this.priority = order.priority();
+            this.createdAtMillis = order.createdAtMillis();
+            this.expiresAtMillis = order.expiresAtMillis();
+        }
+
+        public void set(Order order, CompletableFuture<Order> result, int symbolId, int shard) {
+            copyOrder(order);
+            route(result, symbolId, shard);
+        }
+
+        public void setBatched(Order order, OrderBatch batch, int batchIndex, int symbolId, int shard) {
+            copyOrder(order);
+            route(null, symbolId, shard);
+            this.batch = batch;
+            this.batchIndex = batchIndex;
+        }
+
+        public void setAdmitted(Order order, int symbolId, int shard) {
+            set(order, null, symbolId, shard);
+            this.admitted = true;
+        }
+
+        private void route(CompletableFuture<Order> result, int symbolId, int shard) {
+            this.eventType = EventType.ORDER;
+            // Hora de entrada: validación la usa en vivo y en el replay del journal
+            this.timestamp = System.currentTimeMillis();
+            this.result = result;
+            this.batch = null;
+            this.symbolId = symbolId;
+            this.shard = shard;
+            this.validationReject = null;
+            this.riskReject = null;
+            this.journalReject = null;
+            this.admitted = false;
+        }
+
+        private boolean hasResult() {
+            return result != null || batch != null;
+        }
+
+        public RejectReason rejectReason() {
+            if (journalReject != null) {
+                return journalReject;
+            }
+            return validationReject != null ? validationReject : riskReject;
+        }
+
+        // Snapshot inmutable, solo para el adaptador de futuros
+        private Order toOrder(OrderStatus status) {
+            return new Order(orderId, symbol, orderType, side, price, stopPrice, quantity, 0L,
+                    displayQuantity, minQuantity, traderId, status, exchangeId,
+                    Instant.ofEpochMilli(createdAtMillis), Instant.now(),
+                    expiresAtMillis != 0L ? Instant.ofEpochMilli(expiresAtMillis) : null,
+                    priority, clientOrderId);
+        }
+
+        public void setAmend(int symbolId, int shard, long orderId, long newPrice, long newQuantity,
+                             CompletableFuture<Order> result) {
+            this.eventType = EventType.AMEND;
+            this.timestamp = System.currentTimeMillis();
+            this.result = result;
+            this.batch = null;
+            this.symbolId = symbolId;
+            this.shard = shard;
+            this.orderId = orderId;
+            this.newPrice = newPrice;
+            this.newQuantity = newQuantity;
+            this.journalReject = null;
+        }
+
+        // Comando de reloj, difundido a todos los shards
+        public void setTimer(EventType type, long timestamp) {
+            this.eventType = type;
+            this.timestamp = timestamp;
+            this.result = null;
+            this.batch = null;
+            this.symbolId = InstrumentRegistry.UNKNOWN_SYMBOL;
+            this.shard = ALL_SHARDS;
+            this.journalReject = null;
+        }
+
+        // symbolId ALL_SYMBOLS difunde el comando a todos los shards
+        public void setMassCancel(String traderId, int symbolId, OrderSide side, int shard, MassCancel massCancel) {
+            this.eventType = EventType.MASS_CANCEL;
+            this.result = null;
+            this.batch = null;
+            this.traderId = traderId;
+            this.symbolId = symbolId;
+            this.side = side;
+            this.shard = shard;
+            this.massCancel = massCancel;
+            this.journalReject = null;
+        }
+
+        // Comando de subasta para el shard dueño del símbolo
+        public void setAuction(EventType type, int symbolId, int shard, long referencePrice,
+                               CompletableFuture<OrderBook.AuctionResult> auctionResult) {
+            this.eventType = type;
+            this.timestamp = System.currentTimeMillis();
+            this.result = null;
+            this.batch = null;
+            this.symbolId = symbolId;
+            this.shard = shard;
+            this.referencePrice = referencePrice;
+            this.auctionResult = auctionResult;
+            this.journalReject = null;
+        }
+
+        public EventType eventType() {
+            return eventType;
+        }
+
+        // Registro del journal: tipo, timestamp y símbolo por nombre (los IDs densos
+        // pueden cambiar entre arranques), seguidos de los campos del comando
+        private int journalLength(String symbolName) {
+            int length = 1 + 8 + stringLength(symbolName);
+            return length + switch (eventType) {
+                case ORDER -> 8 + 1 + 1 + 5 * 8 + stringLength(traderId) + stringLength(clientOrderId)
+                        + stringLength(exchangeId) + 4 + 8 + 8;
+                case AMEND -> 3 * 8;
+                case MASS_CANCEL -> stringLength(traderId) + 1;
+                case UNCROSS -> 8;
+                case EXPIRE_TIMERS, EXPIRE_SESSION, AUCTION_START -> 0;
+            };
+        }
+
+        private void writeTo(ByteBuffer buffer, String symbolName) {
+            buffer.put((byte) eventType.ordinal());
+            buffer.putLong(timestamp);
+            putString(buffer, symbolName);
+            switch (eventType) {
+                case ORDER -> {
+                    buffer.putLong(orderId);
+                    buffer.put((byte) (orderType != null ? orderType.ordinal() : -1));
+                    buffer.put((byte) (side != null ? side.ordinal() : -1));
+                    buffer.putLong(price);
+                    buffer.putLong(stopPrice);
+                    buffer.putLong(quantity);
+                    buffer.putLong(displayQuantity);
+                    buffer.putLong(minQuantity);
+                    putString(buffer, traderId);
+                    putString(buffer, clientOrderId);
+                    putString(buffer, exchangeId);
+                    buffer.putInt(priority);
+                    buffer.putLong(createdAtMillis);
+                    buffer.putLong(expiresAtMillis);
+                }
+                case AMEND -> {
+                    buffer.putLong(orderId);
+                    buffer.putLong(newPrice);
+                    buffer.putLong(newQuantity);
+                }
+                case MASS_CANCEL -> {
+                    putString(buffer, traderId);
+                    buffer.put((byte) (side != null ? side.ordinal() : -1));
+                }
+                case UNCROSS -> buffer.putLong(referencePrice);
+                case EXPIRE_TIMERS, EXPIRE_SESSION, AUCTION_START -> {
+                }
+            }
+        }
+
+        // Decodifica los campos del comando; el enrutado lo completa el motor. Devuelve
+        // el nombre del símbolo
+        private String readFrom(ByteBuffer buffer) {
+            eventType = EventType.values()[buffer.get()];
+            timestamp = buffer.getLong();
+            String symbolName = getString(buffer);
+            switch (eventType) {
+                case ORDER -> {
+                    orderId = buffer.getLong();
+                    int typeOrdinal = buffer.get();
+                    orderType = typeOrdinal >= 0 ? OrderType.values()[typeOrdinal] : null;
+                    int sideOrdinal = buffer.get();
+                    side = sideOrdinal >= 0 ? OrderSide.values()[sideOrdinal] : null;
+                    price = buffer.getLong();
+                    stopPrice = buffer.getLong();
+                    quantity = buffer.getLong();
+                    displayQuantity = buffer.getLong();
+                    minQuantity = buffer.getLong();
+                    traderId = getString(buffer);
+                    clientOrderId = getString(buffer);
+                    exchangeId = getString(buffer);
+                    priority = buffer.getInt();
+                    createdAtMillis = buffer.getLong();
+                    expiresAtMillis = buffer.getLong();
+                    symbol = symbolName;
+                }
+                case AMEND -> {
+                    orderId = buffer.getLong();
+                    newPrice = buffer.getLong();
+                    newQuantity = buffer.getLong();
+                }
+                case MASS_CANCEL -> {
+                    traderId = getString(buffer);
+                    int sideOrdinal = buffer.get();
+                    side = sideOrdinal >= 0 ? OrderSide.values()[sideOrdinal] : null;
+                }
+                case UNCROSS -> referencePrice = buffer.getLong();
+                case EXPIRE_TIMERS, EXPIRE_SESSION, AUCTION_START -> {
+                }
+            }
+            return symbolName;
+        }
+
+        // Strings como longitud y chars UTF-16: escribirlos no crea objetos
+        private static int stringLength(String value) {
+            return 2 + (value != null ? 2 * value.length() : 0);
+        }
+
+        private static void putString(ByteBuffer buffer, String value) {
+            if (value == null) {
+                buffer.putShort((short) -1);
+                return;
+            }
+            buffer.putShort((short) value.length());
+            for (int i = 0; i < value.length(); i++) {
+                buffer.putChar(value.charAt(i));
+            }
+        }
+
+        private static String getString(ByteBuffer buffer) {
+            int length = buffer.getShort();
+            if (length < 0) {
+                return null;
+            }
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = buffer.getChar();
+            }
+            return new String(chars);
+        }
+
+        @Override
+        public long orderId() {
+            return orderId;
+        }
+
+        @Override
+        public String clientOrderId() {
+            return clientOrderId;
+        }
+
+        @Override
+        public String symbol() {
+            return symbol;
+        }
+
+        @Override
+        public OrderType type() {
+            return orderType;
+        }
+
+        @Override
+        public OrderSide side() {
+            return side;
+        }
+
+        @Override
+        public long price() {
+            return price;
+        }
+
+        @Override
+        public long stopPrice() {
+            return stopPrice;
+        }
+
+        @Override
+        public long quantity() {
+            return quantity;
+        }
+
+        @Override
+        public long filledQuantity() {
+            return 0L;
+        }
+
+        @Override
+        public long displayQuantity() {
+            return displayQuantity;
+        }
+
+        @Override
+        public long minQuantity() {
+            return minQuantity;
+        }
+
+        @Override
+        public String traderId() {
+            return traderId;
+        }
+
+        @Override
+        public String exchangeId() {
+            return exchangeId;
+        }
+
+        @Override
+        public OrderStatus status() {
+            return OrderStatus.NEW;
+        }
+
+        @Override
+        public int priority() {
+            return priority;
+        }
+
+        @Override
+        public long createdAtMillis() {
+            return createdAtMillis;
+        }
+
+        @Override
+        public long expiresAtMillis() {
+            return expiresAtMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("OrderEvent{%s id=%d, symbol=%s, type=%s, side=%s, price=%d, qty=%d, trader=%s}",
+                    eventType, orderId, symbol, orderType, side, price, quantity, traderId);
+        }
+    }
+
+    // Escribe una orden directamente en el slot del ring (por ejemplo, desde el
+    // decoder de red del gateway); un encoder sin estado no crea objetos por orden
+    @FunctionalInterface
+    public interface OrderEncoder<A> {
+        void encode(OrderEvent event, A source);
+    }
+
+    // Resultados de un lote de órdenes; la última orden en terminar completa el futuro
+    private static final class OrderBatch {
+        private final Order[] results;
+        private final AtomicInteger pending;
+        private final CompletableFuture<List<Order>> result = new CompletableFuture<>();
+
+        private OrderBatch(int size) {
+            this.results = new Order[size];
+            this.pending = new AtomicInteger(size);
+        }
+
+        private void complete(int index, Order order) {
+            results[index] = order;
+            if (pending.decrementAndGet() == 0) {
+                result.complete(List.of(results));
+            }
+        }
+    }
+
+    // Acumula el conteo de los shards alcanzados; el último en terminar completa el futuro
+    private static final class MassCancel {
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+        private final AtomicInteger cancelled = new AtomicInteger();
+        private final AtomicInteger pendingShards;
+
+        private MassCancel(int shards) {
+            this.pendingShards = new AtomicInteger(shards);
+        }
+
+        // Basta con que un shard falle; completeExceptionally ignora las llamadas siguientes
+        private void fail(Throwable cause) {
+            result.completeExceptionally(cause);
+        }
 
-        public void set(Order order, String correlationId) {
-            this.order = order;
-            this.correlationId = correlationId;
+        private void shardDone(int shardCancelled) {
+            int total = cancelled.addAndGet(shardCancelled);
+            if (pendingShards.decrementAndGet() == 0) {
+                result.complete(total);
+            }
         }
     }
 
     public TradingEngine() {
-        this.isRunning = new AtomicBoolean(false);
-        this.orderValidator = new OrderValidator();
-        this.riskManager = new RiskManager();
-        this.orderBook = new OrderBook();
-        this.orderResults = new ConcurrentHashMap<>();
-        this.executorService = Executors.newVirtualThreadPerTaskExecutor();
+        this(EngineConfig.defaults());
+    }
 
-        // Configuración del Disruptor
-        ThreadFactory threadFactory = Thread.ofVirtual()
-                .name("trading-engine-", 0)
-                .factory();
+    public TradingEngine(int matchingShards) {
+        this(InstrumentRegistry.global(), matchingShards);
+    }
+
+    public TradingEngine(InstrumentRegistry instruments, int matchingShards) {
+        this(instruments, matchingShards, new SequenceIdGenerator(0));
+    }
 
+    public TradingEngine(InstrumentRegistry instruments, int matchingShards, IdGenerator orderIds) {
+        this(instruments, EngineConfig.builder().matchingShards(matchingShards).build(), orderIds);
+    }
+
+    public TradingEngine(EngineConfig config) {
+        this(InstrumentRegistry.global(), config, new SequenceIdGenerator(0));
+    }
+
+    public TradingEngine(InstrumentRegistry instruments, EngineConfig config, IdGenerator orderIds) {
+        int matchingShards = config.matchingShards();
+        this.isRunning = new AtomicBoolean(false);
+        this.config = config;
+        this.instruments = instruments;
+        this.orderValidator = new OrderValidator(instruments);
+        this.riskManager = new RiskManager(instruments);
+        this.shardBooks = new OrderBook[matchingShards];
+        for (int i = 0; i < matchingShards; i++) {
+            shardBooks[i] = new OrderBook(instruments, OrderBook.BookType.SKIP_LIST);
+        }
+        this.orderIds = orderIds;
+        // Con journal, la época de trade IDs es la del primer arranque: el replay vuelve
+        // a generar los mismos IDs para las mismas ejecuciones y los nuevos continúan la serie
+        long startMillis = System.currentTimeMillis();
+        if (config.journalDirectory() != null) {
+            this.journal = new EventJournal(config.journalDirectory(), config.journalSegmentSize(),
+                    config.journalFlush());
+            try {
+                journal.recover(startMillis);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open journal at " + config.journalDirectory(), e);
+            }
+            this.tradeIdStartMillis = journal.epochMillis();
+        } else {
+            this.journal = null;
+            this.tradeIdStartMillis = startMillis;
+        }
+
+        // Configuración del Disruptor; los rings y el timer comparten la fábrica de hilos:
+        // todos respetan el tipo de hilo configurado y el hook de afinidad ve índices
+        // consecutivos. El hilo del timer se crea con el primer tick, después de los handlers
+        ThreadFactory threadFactory = config.createThreadFactory();
+        this.timerScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
         this.disruptor = new Disruptor<>(
                 OrderEvent::new,
-                RING_BUFFER_SIZE,
+                config.ringSize(),
                 threadFactory,
-                ProducerType.MULTI,
-                new YieldingWaitStrategy()
+                config.producerType(),
+                config.createWaitStrategy()
         );
 
-        // Configurar el pipeline de procesamiento
-        this.disruptor.handleEventsWith(this::validateOrder)
-                .then(this::checkRisk)
-                .then(this::processOrder);
+        // Configurar el pipeline de procesamiento: journal, validación y riesgo en
+        // paralelo, y los matchers (uno por shard) esperan a todos. Así ningún comando
+        // toca un libro antes de estar en el journal, sin sumar una etapa a la latencia
+        EventHandler<OrderEvent>[] matchers = createMatchers(matchingShards);
+        if (journal != null) {
+            this.disruptor.handleEventsWith(this::journalEvent, this::validateOrder, this::checkRisk)
+                    .then(matchers);
+        } else {
+            this.disruptor.handleEventsWith(this::validateOrder, this::checkRisk)
+                    .then(matchers);
+        }
 
         this.ringBuffer = disruptor.getRingBuffer();
+        this.admission = new AdmissionControl(config.ringSize(), config.admissionFillRatio(),
+                config.maxTraderShare());
+
+        // Cada shard publica sus reportes: el ring de salida siempre es multi-productor
+        this.sessions = new ConcurrentHashMap<>();
+        this.reportDisruptor = new Disruptor<>(
+                ExecutionReport::new,
+                config.ringSize(),
+                threadFactory,
+                ProducerType.MULTI,
+                config.createWaitStrategy()
+        );
+        this.reportDisruptor.handleEventsWith(this::dispatchReport);
+        this.reports = reportDisruptor.getRingBuffer();
+
+        this.tradeDisruptor = new Disruptor<>(
+                TradeEvent::new,
+                config.ringSize(),
+                threadFactory,
+                ProducerType.MULTI,
+                config.createWaitStrategy()
+        );
+        this.tradeDisruptor.handleEventsWith(new TradeNotifier(), new MarketDataPublisher(), new TradeLogger());
+        this.trades = tradeDisruptor.getRingBuffer();
+
+        if (journal != null) {
+            replayJournal(matchers);
+        }
+    }
+
+    // Reconstruye los libros en el hilo del constructor pasando cada comando del journal
+    // por las mismas etapas del pipeline; los hilos del ring aún no existen
+    private void replayJournal(EventHandler<OrderEvent>[] matchers) {
+        long records = journal.recoveredRecords();
+        if (records == 0) {
+            return;
+        }
+        OrderEvent event = new OrderEvent();
+        replaying = true;
+        try {
+            journal.replay(payload -> {
+                routeReplayed(event, event.readFrom(payload));
+                validateOrder(event, 0L, true);
+                checkRisk(event, 0L, true);
+                for (EventHandler<OrderEvent> matcher : matchers) {
+                    try {
+                        matcher.onEvent(event, 0L, true);
+                    } catch (Exception e) {
+                        logger.error("Error replaying {}", event, e);
+                    }
+                }
+            });
+        } finally {
+            replaying = false;
+        }
+        logger.info("Replayed {} journal records from {}", records, config.journalDirectory());
+    }
+
+    private void routeReplayed(OrderEvent event, String symbolName) {
+        // El enrutado vuelve a sellar la hora: se conserva la del journal
+        long journaledAt = event.timestamp;
+        int symbolId = symbolName != null ? instruments.idOf(symbolName) : InstrumentRegistry.UNKNOWN_SYMBOL;
+        switch (event.eventType) {
+            case ORDER -> event.route(null, symbolId, shardFor(symbolId));
+            case AMEND -> event.setAmend(symbolId, shardFor(symbolId), event.orderId, event.newPrice,
+                    event.newQuantity, null);
+            case MASS_CANCEL -> {
+                if (symbolName == null) {
+                    event.setMassCancel(event.traderId, OrderBook.ALL_SYMBOLS, event.side, ALL_SHARDS,
+                            new MassCancel(shardBooks.length));
+                } else {
+                    // Un símbolo que ya no está registrado no tiene órdenes que cancelar
+                    event.setMassCancel(event.traderId, symbolId, event.side,
+                            symbolId != InstrumentRegistry.UNKNOWN_SYMBOL ? shardFor(symbolId) : NO_SHARD,
+                            new MassCancel(1));
+                }
+            }
+            case EXPIRE_TIMERS, EXPIRE_SESSION -> event.setTimer(event.eventType, journaledAt);
+            case AUCTION_START, UNCROSS -> event.setAuction(event.eventType, symbolId,
+                    symbolId != InstrumentRegistry.UNKNOWN_SYMBOL ? shardFor(symbolId) : NO_SHARD,
+                    event.referencePrice, null);
+        }
+        event.timestamp = journaledAt;
+    }
+
+    // Suma un consumidor independiente al ring de trades; solo antes de start()
+    public void addTradeHandler(EventHandler<TradeEvent> handler) {
+        if (isRunning.get()) {
+            throw new IllegalStateException("Trade handlers must be added before start");
+        }
+        tradeDisruptor.handleEventsWith(handler);
     }
 
     public void start() {
         if (isRunning.compareAndSet(false, true)) {
-            logger.info("Starting Trading Engine");
+            logger.info("Starting Trading Engine with {}", config);
+            reportDisruptor.start();
+            tradeDisruptor.start();
             disruptor.start();
+            // Con un único productor el timer no puede publicar: los ticks los da expireOrders()
+            if (config.producerType() == ProducerType.MULTI) {
+                timerScheduler.scheduleAtFixedRate(this::expireOrders,
+                        TimingWheel.DEFAULT_TICK_MILLIS, TimingWheel.DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS);
+            }
         }
     }
 
     public void stop() {
         if (isRunning.compareAndSet(true, false)) {
             logger.info("Stopping Trading Engine");
+            timerScheduler.shutdownNow();
             disruptor.shutdown();
-            executorService.shutdown();
+            if (journal != null) {
+                journal.close();
+            }
+            reportDisruptor.shutdown();
+            tradeDisruptor.shutdown();
+        }
+    }
+
+    // Recibe los reportes de ejecución (acks, trades, cancelaciones, vencimientos y
+    // rechazos) de las órdenes del trader; reemplaza la sesión previa si existía
+    public void registerSession(String traderId, ExecutionReportListener listener) {
+        sessions.put(traderId, listener);
+        hasSessions = true;
+    }
+
+    public void unregisterSession(String traderId) {
+        sessions.remove(traderId);
+        hasSessions = !sessions.isEmpty();
+    }
+
+    // Ruta sin futuro: el resultado llega solo por los reportes de la sesión del trader.
+    // Devuelve el ID asignado a la orden
+    public long sendOrder(Order order) {
+        if (!isRunning.get()) {
+            throw new IllegalStateException("Trading Engine is not running");
         }
+        Order assignedOrder = order.withOrderId(orderIds.nextId());
+        int symbolId = instruments.idOf(order.symbol());
+        int shard = shardFor(symbolId);
+        ringBuffer.publishEvent((event, sequence) ->
+                event.set(assignedOrder, null, symbolId, shard));
+        return assignedOrder.orderId();
+    }
+
+    // Ruta sin objetos del gateway: el encoder escribe la orden en el slot reclamado y
+    // el motor completa ID, símbolo y shard antes de publicar
+    public <A> long sendOrder(OrderEncoder<A> encoder, A source) {
+        if (!isRunning.get()) {
+            throw new IllegalStateException("Trading Engine is not running");
+        }
+        long sequence = ringBuffer.next();
+        OrderEvent event = ringBuffer.get(sequence);
+        long orderId = orderIds.nextId();
+        try {
+            encoder.encode(event, source);
+            event.orderId = orderId;
+            int symbolId = instruments.idOf(event.symbol);
+            event.route(null, symbolId, shardFor(symbolId));
+        } catch (RuntimeException e) {
+            // La secuencia ya está reclamada: se publica marcada como rechazo interno, que
+            // además la deja fuera del journal. Sin la identidad del ocupante anterior ni
+            // campos a medio codificar; sin trader no se envía reporte a ninguna sesión
+            event.route(null, InstrumentRegistry.UNKNOWN_SYMBOL, 0);
+            event.orderId = orderId;
+            event.symbol = null;
+            event.traderId = null;
+            event.clientOrderId = null;
+            event.journalReject = RejectReason.INTERNAL_ERROR;
+            throw e;
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+        return orderId;
     }
 
+    // Variante que nunca bloquea al gateway: rechaza en el acto si el ring está por
+    // encima del umbral, lleno, o si el trader agotó su cuota de órdenes en vuelo.
+    // Como sendOrder, el resultado llega por los reportes de la sesión
+    public AdmissionResult trySubmit(Order order) {
+        if (!isRunning.get()) {
+            return AdmissionResult.ENGINE_STOPPED;
+        }
+        if (admission.isBusy(ringBuffer.getBufferSize() - ringBuffer.remainingCapacity())) {
+            return AdmissionResult.RING_BUSY;
+        }
+        String traderId = order.traderId();
+        if (!admission.acquire(traderId)) {
+            return AdmissionResult.TRADER_LIMIT;
+        }
+
+        Order assignedOrder = order.withOrderId(orderIds.nextId());
+        int symbolId = instruments.idOf(order.symbol());
+        int shard = shardFor(symbolId);
+        if (!ringBuffer.tryPublishEvent((event, sequence) ->
+                event.setAdmitted(assignedOrder, symbolId, shard))) {
+            admission.release(traderId);
+            return AdmissionResult.RING_FULL;
+        }
+        return AdmissionResult.ACCEPTED;
+    }
+
+    // Slots libres del ring de entrada
+    public long remainingCapacity() {
+        return ringBuffer.remainingCapacity();
+    }
+
+    // Órdenes de trySubmit del trader que todavía no llegaron a su matcher
+    public int inFlightOrders(String traderId) {
+        return admission.inFlight(traderId);
+    }
+
+    // Adaptador de conveniencia: el futuro se completa en el matcher con el estado final
     public CompletableFuture<Order> submitOrder(Order order) {
         if (!isRunning.get()) {
             return CompletableFuture.failedFuture(
@@ -101,95 +838,764 @@ public class TradingEngine {
         }
 
         CompletableFuture<Order> future = new CompletableFuture<>();
-        orderResults.put(order.orderId(), future);
+        Order assignedOrder = order.withOrderId(orderIds.nextId());
+        // Única búsqueda por string del pipeline; un símbolo desconocido lo rechaza validación
+        int symbolId = instruments.idOf(order.symbol());
+        int shard = shardFor(symbolId);
 
         // Publicar orden al ring buffer
         ringBuffer.publishEvent((event, sequence) ->
-                event.set(order, order.orderId()));
+                event.set(assignedOrder, future, symbolId, shard));
+
+        return future;
+    }
+
+    // Publica un lote con un solo claim de secuencias del ring: una única contención
+    // entre productores y un único futuro, con los resultados en el orden del lote
+    public CompletableFuture<List<Order>> submitOrders(List<Order> orders) {
+        return submitOrders(orders.toArray(new Order[0]), 0, orders.size());
+    }
+
+    public CompletableFuture<List<Order>> submitOrders(Order[] orders, int offset, int length) {
+        if (!isRunning.get()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Trading Engine is not running"));
+        }
+        Objects.checkFromIndexSize(offset, length, orders.length);
+        if (length == 0) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        OrderBatch batch = new OrderBatch(length);
+        // IDs y símbolos se resuelven antes del claim para no retener secuencias sin publicar
+        Order[] assigned = new Order[length];
+        int[] symbolIds = new int[length];
+        for (int i = 0; i < length; i++) {
+            Order order = orders[offset + i];
+            assigned[i] = order.withOrderId(orderIds.nextId());
+            symbolIds[i] = instruments.idOf(order.symbol());
+        }
+
+        // Un claim no puede superar el tamaño del ring
+        int chunk = ringBuffer.getBufferSize();
+        for (int from = 0; from < length; from += chunk) {
+            int n = Math.min(chunk, length - from);
+            long hi = ringBuffer.next(n);
+            long lo = hi - (n - 1);
+            try {
+                for (int i = 0; i < n; i++) {
+                    int index = from + i;
+                    ringBuffer.get(lo + i).setBatched(assigned[index], batch, index,
+                            symbolIds[index], shardFor(symbolIds[index]));
+                }
+            } finally {
+                ringBuffer.publish(lo, hi);
+            }
+        }
+        return batch.result;
+    }
+
+    // Variante en columnas: sin Order por orden en el gateway; cada fila se codifica en
+    // su slot dentro del claim. IDs y símbolos se resuelven antes, como en la otra variante
+    public CompletableFuture<List<Order>> submitOrders(OrderColumns columns) {
+        if (!isRunning.get()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Trading Engine is not running"));
+        }
+        int length = columns.size();
+        if (length == 0) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        OrderBatch batch = new OrderBatch(length);
+        long[] assignedIds = new long[length];
+        int[] symbolIds = new int[length];
+        for (int i = 0; i < length; i++) {
+            assignedIds[i] = orderIds.nextId();
+            symbolIds[i] = instruments.idOf(columns.symbol(i));
+        }
+
+        int chunk = ringBuffer.getBufferSize();
+        for (int from = 0; from < length; from += chunk) {
+            int n = Math.min(chunk, length - from);
+            long hi = ringBuffer.next(n);
+            long lo = hi - (n - 1);
+            try {
+                for (int i = 0; i < n; i++) {
+                    int index = from + i;
+                    OrderEvent event = ringBuffer.get(lo + i);
+                    columns.encode(index, event);
+                    event.orderId = assignedIds[index];
+                    event.route(null, symbolIds[index], shardFor(symbolIds[index]));
+                    event.batch = batch;
+                    event.batchIndex = index;
+                }
+            } finally {
+                ringBuffer.publish(lo, hi);
+            }
+        }
+        return batch.result;
+    }
+
+    // Modifica precio (en ticks) y cantidad total de una orden viva con un único evento.
+    // Reducir cantidad al mismo precio conserva la prioridad en la cola
+    public CompletableFuture<Order> amendOrder(String symbol, long orderId, long newPrice, long newQuantity) {
+        if (!isRunning.get()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Trading Engine is not running"));
+        }
+        int symbolId = instruments.idOf(symbol);
+        if (symbolId == InstrumentRegistry.UNKNOWN_SYMBOL || newPrice <= 0 || newQuantity <= 0) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Invalid amend for order " + orderId));
+        }
+
+        CompletableFuture<Order> future = new CompletableFuture<>();
+        int shard = shardFor(symbolId);
+        ringBuffer.publishEvent((event, sequence) ->
+                event.setAmend(symbolId, shard, orderId, newPrice, newQuantity, future));
+        return future;
+    }
+
+    // Kill switch: cancela en un único evento todas las órdenes vivas del alcance
+    // indicado; null en cualquier parámetro no filtra por ese campo. El futuro
+    // entrega la cantidad de órdenes canceladas
+    public CompletableFuture<Integer> massCancel(String traderId, String symbol, OrderSide side) {
+        if (!isRunning.get()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Trading Engine is not running"));
+        }
+        int symbolId;
+        int shard;
+        if (symbol == null) {
+            symbolId = OrderBook.ALL_SYMBOLS;
+            shard = ALL_SHARDS;
+        } else {
+            symbolId = instruments.idOf(symbol);
+            if (symbolId == InstrumentRegistry.UNKNOWN_SYMBOL) {
+                return CompletableFuture.completedFuture(0);
+            }
+            shard = shardFor(symbolId);
+        }
+
+        MassCancel massCancel = new MassCancel(shard == ALL_SHARDS ? shardBooks.length : 1);
+        ringBuffer.publishEvent((event, sequence) ->
+                event.setMassCancel(traderId, symbolId, side, shard, massCancel));
+        return massCancel.result;
+    }
+
+    // Abre la subasta del símbolo en su shard: las órdenes siguientes se acumulan sin
+    // ejecutar hasta el uncross. Pasa por el journal como cualquier comando
+    public CompletableFuture<Void> startAuction(String symbol) {
+        return publishAuction(EventType.AUCTION_START, symbol, 0L).thenApply(result -> null);
+    }
+
+    // Cierra la subasta al precio de equilibrio; referencePrice (ticks) desempata entre
+    // precios candidatos y 0 usa el último negociado
+    public CompletableFuture<OrderBook.AuctionResult> uncross(String symbol, long referencePrice) {
+        return publishAuction(EventType.UNCROSS, symbol, referencePrice);
+    }
+
+    private CompletableFuture<OrderBook.AuctionResult> publishAuction(EventType type, String symbol,
+                                                                      long referencePrice) {
+        if (!isRunning.get()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Trading Engine is not running"));
+        }
+        int symbolId = instruments.idOf(symbol);
+        if (symbolId == InstrumentRegistry.UNKNOWN_SYMBOL || referencePrice < 0) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Invalid " + type + " for symbol " + symbol));
+        }
 
+        CompletableFuture<OrderBook.AuctionResult> future = new CompletableFuture<>();
+        int shard = shardFor(symbolId);
+        ringBuffer.publishEvent((event, sequence) ->
+                event.setAuction(type, symbolId, shard, referencePrice, future));
         return future;
     }
 
+    // Cierre de sesión: el matcher de cada shard vence las órdenes day/GTD de sus libros
+    public void expireSession() {
+        if (!isRunning.get()) {
+            throw new IllegalStateException("Trading Engine is not running");
+        }
+        long now = System.currentTimeMillis();
+        ringBuffer.publishEvent((event, sequence) -> event.setTimer(EventType.EXPIRE_SESSION, now));
+    }
+
+    // Tick de expiración; con ProducerType.SINGLE debe llamarlo el hilo productor. Si
+    // ningún shard tiene vencimientos pendientes no se publica: el tick no cambiaría los
+    // libros y no ocupa el ring ni el journal
+    public void expireOrders() {
+        long now = System.currentTimeMillis();
+        if (!hasDueExpiries(now)) {
+            return;
+        }
+        ringBuffer.publishEvent((event, sequence) -> event.setTimer(EventType.EXPIRE_TIMERS, now));
+    }
+
+    private boolean hasDueExpiries(long nowMillis) {
+        for (OrderBook book : shardBooks) {
+            if (book.nextExpiryMillis() <= nowMillis) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Anexa el comando al journal; el flush de disco, si se configuró, es uno por lote
+    private void journalEvent(OrderEvent event, long sequence, boolean endOfBatch) {
+        // Un evento que el productor ya rechazó no se persiste: un replay lo procesaría
+        if (event.journalReject == null) {
+            try {
+                String symbolName = switch (event.eventType) {
+                    case ORDER -> event.symbol;
+                    case AMEND, MASS_CANCEL, AUCTION_START, UNCROSS ->
+                            event.symbolId >= 0 ? instruments.symbolOf(event.symbolId) : null;
+                    case EXPIRE_TIMERS, EXPIRE_SESSION -> null;
+                };
+                ByteBuffer buffer = journal.beginRecord(event.journalLength(symbolName));
+                event.writeTo(buffer, symbolName);
+                journal.endRecord();
+            } catch (Exception e) {
+                // Un comando que no quedó en el journal no debe llegar al libro
+                logger.error("Error journaling {}", event, e);
+                event.journalReject = RejectReason.INTERNAL_ERROR;
+            }
+        }
+        if (endOfBatch) {
+            journal.commit();
+        }
+    }
+
+    // Las etapas previas solo marcan el evento; el matcher del shard responde el rechazo
     private void validateOrder(OrderEvent event, long sequence, boolean endOfBatch) {
-        Order order = event.order;
+        if (event.eventType != EventType.ORDER) {
+            return;
+        }
         try {
-            if (!orderValidator.validate(order)) {
-                completeOrder(order.withStatus(OrderStatus.REJECTED));
+            if (event.symbolId == InstrumentRegistry.UNKNOWN_SYMBOL) {
+                event.validationReject = RejectReason.UNKNOWN_SYMBOL;
+            } else if (!orderValidator.validate(event, event.symbolId, event.timestamp)) {
+                event.validationReject = RejectReason.INVALID_ORDER;
             }
         } catch (Exception e) {
-            logger.error("Error validating order: {}", order, e);
-            completeOrder(order.withStatus(OrderStatus.REJECTED));
+            logger.error("Error validating order: {}", event, e);
+            event.validationReject = RejectReason.INTERNAL_ERROR;
         }
     }
 
     private void checkRisk(OrderEvent event, long sequence, boolean endOfBatch) {
-        Order order = event.order;
+        if (event.eventType != EventType.ORDER) {
+            return;
+        }
         try {
-            if (!riskManager.checkRisk(order)) {
-                completeOrder(order.withStatus(OrderStatus.REJECTED));
+            if (!riskManager.checkRisk(event, event.symbolId)) {
+                event.riskReject = RejectReason.RISK_LIMIT;
             }
         } catch (Exception e) {
-            logger.error("Error in risk check for order: {}", order, e);
-            completeOrder(order.withStatus(OrderStatus.REJECTED));
+            logger.error("Error in risk check for order: {}", event, e);
+            event.riskReject = RejectReason.INTERNAL_ERROR;
         }
     }
 
-    private void processOrder(OrderEvent event, long sequence, boolean endOfBatch) {
-        Order order = event.order;
-        try {
-            OrderBook.MatchingResult result = orderBook.processOrder(order);
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private EventHandler<OrderEvent>[] createMatchers(int matchingShards) {
+        EventHandler<OrderEvent>[] matchers = new EventHandler[matchingShards];
+        for (int i = 0; i < matchingShards; i++) {
+            int shard = i;
+            // Un generador por shard (nodo = shard): los trade IDs no dependen del
+            // entrelazado entre shards y se reproducen igual en un replay
+            ShardMatchListener listener = new ShardMatchListener(
+                    new SequenceIdGenerator(shard, tradeIdStartMillis));
+            AmendView amendView = new AmendView();
+            matchers[i] = (event, sequence, endOfBatch) -> {
+                if (event.shard != shard && event.shard != ALL_SHARDS) {
+                    return;
+                }
+                switch (event.eventType) {
+                    case ORDER -> processOrder(shardBooks[shard], listener, event);
+                    case AMEND -> processAmend(shardBooks[shard], listener, amendView, event);
+                    case MASS_CANCEL -> processMassCancel(shardBooks[shard], listener, event);
+                    case EXPIRE_TIMERS, EXPIRE_SESSION -> processTimer(shardBooks[shard], listener, event);
+                    case AUCTION_START, UNCROSS -> processAuction(shardBooks[shard], listener, event);
+                }
+            };
+        }
+        return matchers;
+    }
+
+    // Orden viva con el precio y la cantidad de un amend, leída como OrderView por
+    // validación y riesgo sin copiarla; una por shard
+    private static final class AmendView implements OrderView {
+        private OrderEntry entry;
+        private long price;
+        private long quantity;
+
+        private void wrap(OrderEntry entry, long price, long quantity) {
+            this.entry = entry;
+            this.price = price;
+            this.quantity = quantity;
+        }
+
+        @Override
+        public long orderId() {
+            return entry.orderId;
+        }
+
+        @Override
+        public String clientOrderId() {
+            return entry.clientOrderId;
+        }
+
+        @Override
+        public String symbol() {
+            return entry.symbol;
+        }
+
+        @Override
+        public OrderType type() {
+            return entry.type;
+        }
+
+        @Override
+        public OrderSide side() {
+            return entry.side;
+        }
+
+        @Override
+        public long price() {
+            return price;
+        }
+
+        @Override
+        public long stopPrice() {
+            return entry.stopPrice;
+        }
+
+        @Override
+        public long quantity() {
+            return quantity;
+        }
+
+        @Override
+        public long filledQuantity() {
+            return entry.filledQuantity;
+        }
+
+        // Como en el libro, display y mínimo se recortan a la nueva cantidad
+        @Override
+        public long displayQuantity() {
+            return Math.min(entry.displayQuantity, quantity);
+        }
+
+        @Override
+        public long minQuantity() {
+            return Math.min(entry.minQuantity, quantity);
+        }
 
-            // Procesar trades resultantes
-            result.trades().forEach(this::processTrade);
+        @Override
+        public String traderId() {
+            return entry.traderId;
+        }
 
-            // Actualizar orden con cantidad ejecutada
-            if (result.remainingOrder() != null) {
-                completeOrder(result.remainingOrder());
+        @Override
+        public String exchangeId() {
+            return entry.exchangeId;
+        }
+
+        @Override
+        public OrderStatus status() {
+            return entry.status;
+        }
+
+        @Override
+        public int priority() {
+            return entry.priority;
+        }
+
+        @Override
+        public long createdAtMillis() {
+            return entry.createdAtMillis;
+        }
+
+        @Override
+        public long expiresAtMillis() {
+            return entry.expiresAtMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Amend{id=%d, price=%d, qty=%d}", entry.orderId, price, quantity);
+        }
+    }
+
+    // Listener reutilizable de cada shard: las ejecuciones fluyen sin crear objetos por orden
+    private final class ShardMatchListener implements MatchListener {
+        private final IdGenerator tradeIds;
+        private OrderEvent event;
+
+        private ShardMatchListener(IdGenerator tradeIds) {
+            this.tradeIds = tradeIds;
+        }
+
+        @Override
+        public void onTrade(OrderEntry maker, OrderEntry taker, long price, long quantity) {
+            long tradeId = tradeIds.nextId();
+            publishTrade(tradeId, maker, taker, price, quantity);
+            publishReport(ExecutionReport.ExecType.TRADE, maker, tradeId, price, quantity);
+            publishReport(ExecutionReport.ExecType.TRADE, taker, tradeId, price, quantity);
+        }
+
+        @Override
+        public void onOrderProcessed(OrderEntry order, boolean resting) {
+            if (event.hasResult()) {
+                completeOrder(event, order.toOrder());
+            }
+            if (event.eventType == EventType.AMEND) {
+                publishReport(ExecutionReport.ExecType.REPLACED, order);
             } else {
-                completeOrder(order.withStatus(OrderStatus.FILLED));
+                reportOutcome(order, resting);
+            }
+        }
+
+        @Override
+        public void onStopTriggered(OrderEntry order, boolean resting) {
+            reportOutcome(order, resting);
+        }
+
+        @Override
+        public void onOrderCancelled(OrderEntry order) {
+            publishReport(ExecutionReport.ExecType.CANCELLED, order);
+        }
+
+        @Override
+        public void onOrderExpired(OrderEntry order) {
+            publishReport(ExecutionReport.ExecType.EXPIRED, order);
+        }
+
+        // Las ejecuciones ya se reportaron; queda el ack o el descarte del remanente
+        private void reportOutcome(OrderEntry order, boolean resting) {
+            if (!resting && order.remainingQuantity() > 0) {
+                publishReport(ExecutionReport.ExecType.CANCELLED, order);
+            } else if (resting && order.filledQuantity() == 0) {
+                publishReport(ExecutionReport.ExecType.NEW, order);
+            }
+        }
+    }
+
+    private void publishReport(ExecutionReport.ExecType execType, OrderEntry entry) {
+        publishReport(execType, entry, 0L, 0L, 0L);
+    }
+
+    // Sin lambda ni traductor: claim, escritura en el slot y publish
+    private void publishReport(ExecutionReport.ExecType execType, OrderEntry entry,
+                               long tradeId, long lastPrice, long lastQuantity) {
+        if (replaying || !hasSessions || !sessions.containsKey(entry.traderId())) {
+            return;
+        }
+        long sequence = reports.next();
+        try {
+            reports.get(sequence).set(execType, entry, tradeId, lastPrice, lastQuantity);
+        } finally {
+            reports.publish(sequence);
+        }
+    }
+
+    private void publishRejected(OrderView order, RejectReason reason) {
+        if (replaying || !hasSessions || order.traderId() == null || !sessions.containsKey(order.traderId())) {
+            return;
+        }
+        long sequence = reports.next();
+        try {
+            reports.get(sequence).setRejected(order, reason);
+        } finally {
+            reports.publish(sequence);
+        }
+    }
+
+    private void dispatchReport(ExecutionReport report, long sequence, boolean endOfBatch) {
+        ExecutionReportListener listener = sessions.get(report.traderId());
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.onExecutionReport(report, endOfBatch);
+        } catch (Exception e) {
+            logger.error("Error delivering {}", report, e);
+        }
+    }
+
+    private int shardFor(int symbolId) {
+        return symbolId >= 0 ? symbolId % shardBooks.length : 0;
+    }
+
+    private OrderBook bookFor(String symbol) {
+        int symbolId = instruments.idOf(symbol);
+        return symbolId != InstrumentRegistry.UNKNOWN_SYMBOL ? shardBooks[shardFor(symbolId)] : null;
+    }
+
+    private void processOrder(OrderBook orderBook, ShardMatchListener listener, OrderEvent event) {
+        if (event.admitted) {
+            admission.release(event.traderId);
+        }
+        RejectReason reject = event.rejectReason();
+        if (reject != null) {
+            // Rechazada antes del matching: no toca el libro
+            if (logger.isDebugEnabled()) {
+                logger.debug("Order {} rejected: {}", event.orderId, reject);
             }
+            rejectOrder(event, reject);
+            return;
+        }
+        try {
+            listener.event = event;
+            orderBook.processOrder(event.symbolId, event, listener);
         } catch (Exception e) {
-            logger.error("Error processing order: {}", order, e);
-            completeOrder(order.withStatus(OrderStatus.REJECTED));
+            logger.error("Error processing order: {}", event, e);
+            rejectOrder(event, RejectReason.INTERNAL_ERROR);
         }
     }
 
-    private void processTrade(Trade trade) {
+    private void rejectOrder(OrderEvent event, RejectReason reason) {
+        if (event.hasResult()) {
+            completeOrder(event, event.toOrder(OrderStatus.REJECTED));
+        }
+        publishRejected(event, reason);
+    }
+
+    private void processAmend(OrderBook orderBook, ShardMatchListener listener, AmendView amendView,
+                              OrderEvent event) {
+        if (event.journalReject != null) {
+            failOrder(event, new IllegalStateException("Amend of order " + event.orderId + " was not journaled"));
+            return;
+        }
+        try {
+            // La orden modificada pasa por los mismos límites que una orden nueva
+            OrderEntry entry = orderBook.findOrder(event.symbolId, event.orderId);
+            if (entry != null) {
+                amendView.wrap(entry, event.newPrice, event.newQuantity);
+                RejectReason reject = !orderValidator.validate(amendView, event.symbolId, event.timestamp)
+                        ? RejectReason.INVALID_ORDER
+                        : !riskManager.checkRisk(amendView, event.symbolId) ? RejectReason.RISK_LIMIT : null;
+                amendView.wrap(null, 0L, 0L);
+                if (reject != null) {
+                    failOrder(event, new IllegalArgumentException(
+                            "Amend of order " + event.orderId + " rejected: " + reject));
+                    return;
+                }
+            }
+            listener.event = event;
+            if (!orderBook.amendOrder(event.symbolId, event.orderId, event.newPrice, event.newQuantity, listener)) {
+                failOrder(event, new IllegalArgumentException("Order " + event.orderId + " cannot be amended"));
+            }
+        } catch (Exception e) {
+            logger.error("Error amending order {}", event.orderId, e);
+            failOrder(event, e);
+        }
+    }
+
+    private void processMassCancel(OrderBook orderBook, ShardMatchListener listener, OrderEvent event) {
+        if (event.journalReject != null) {
+            event.massCancel.fail(new IllegalStateException("Mass cancel was not journaled"));
+            return;
+        }
+        int cancelled = 0;
         try {
-            // Notificar el trade a los participantes
-            notifyTradeParticipants(trade);
+            cancelled = orderBook.cancelOrders(event.traderId, event.symbolId, event.side, listener);
+        } catch (Exception e) {
+            logger.error("Error in mass cancel trader={} symbol={} side={}",
+                    event.traderId, event.symbolId, event.side, e);
+        } finally {
+            event.massCancel.shardDone(cancelled);
+        }
+    }
 
-            // Publicar market data
-            publishMarketData(trade);
+    private void processTimer(OrderBook orderBook, ShardMatchListener listener, OrderEvent event) {
+        if (event.journalReject != null) {
+            // El próximo tick vence lo pendiente; aplicar este divergiría del replay
+            return;
+        }
+        try {
+            if (event.eventType == EventType.EXPIRE_SESSION) {
+                orderBook.expireSession(listener);
+            } else {
+                orderBook.expireOrders(event.timestamp, listener);
+            }
+        } catch (Exception e) {
+            logger.error("Error expiring orders at {}", event.timestamp, e);
+        }
+    }
 
-            // Registrar el trade
-            logTrade(trade);
+    // Corre en el matcher del shard: la fase y el uncross se serializan con las órdenes
+    private void processAuction(OrderBook orderBook, ShardMatchListener listener, OrderEvent event) {
+        CompletableFuture<OrderBook.AuctionResult> future = event.auctionResult;
+        event.auctionResult = null;
+        if (event.journalReject != null) {
+            if (future != null) {
+                future.completeExceptionally(new IllegalStateException(event.eventType + " was not journaled"));
+            }
+            return;
+        }
+        try {
+            OrderBook.AuctionResult result = null;
+            if (event.eventType == EventType.AUCTION_START) {
+                orderBook.startAuction(event.symbolId);
+            } else {
+                listener.event = event;
+                result = orderBook.uncross(event.symbolId, event.referencePrice, listener);
+            }
+            if (future != null) {
+                future.complete(result);
+            }
         } catch (Exception e) {
-            logger.error("Error processing trade: {}", trade, e);
+            logger.error("Error processing {} for symbol {}", event.eventType, event.symbolId, e);
+            if (future != null) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    // El matcher solo copia el trade al ring; la E/S ocurre en los consumidores
+    private void publishTrade(long tradeId, OrderEntry maker, OrderEntry taker, long price, long quantity) {
+        if (replaying) {
+            return;
+        }
+        long sequence = trades.next();
+        try {
+            trades.get(sequence).set(tradeId, maker, taker, price, quantity, System.currentTimeMillis());
+        } finally {
+            trades.publish(sequence);
         }
     }
 
-    private void completeOrder(Order order) {
-        CompletableFuture<Order> future = orderResults.remove(order.orderId());
+    private void completeOrder(OrderEvent event, Order order) {
+        OrderBatch batch = event.batch;
+        if (batch != null) {
+            event.batch = null;
+            batch.complete(event.batchIndex, order);
+            return;
+        }
+        CompletableFuture<Order> future = event.result;
         if (future != null) {
+            event.result = null;
             future.complete(order);
         }
     }
 
-    private void notifyTradeParticipants(Trade trade) {
+    private void failOrder(OrderEvent event, Throwable cause) {
+        CompletableFuture<Order> future = event.result;
+        if (future != null) {
+            event.result = null;
+            future.completeExceptionally(cause);
+        }
+    }
+
+    // Consumidores del ring de trades: cada uno acumula y hace flush en endOfBatch,
+    // así un sink lento agrupa más trades por escritura en vez de frenar al matcher
+    private final class TradeNotifier implements EventHandler<TradeEvent> {
+        private int pending;
+
+        @Override
+        public void onEvent(TradeEvent trade, long sequence, boolean endOfBatch) {
+            try {
+                notifyTradeParticipants(trade);
+                pending++;
+                if (endOfBatch) {
+                    flushNotifications(pending);
+                    pending = 0;
+                }
+            } catch (Exception e) {
+                logger.error("Error notifying trade {}", trade, e);
+            }
+        }
+    }
+
+    // Conflación por símbolo dentro del lote: un update con último precio y volumen
+    private final class MarketDataPublisher implements EventHandler<TradeEvent> {
+        private final Map<String, MarketDataUpdate> updates = new LinkedHashMap<>();
+
+        @Override
+        public void onEvent(TradeEvent trade, long sequence, boolean endOfBatch) {
+            try {
+                MarketDataUpdate update = updates.computeIfAbsent(trade.symbol(), symbol -> new MarketDataUpdate());
+                update.lastPrice = trade.price();
+                update.volume += trade.quantity();
+                update.dirty = true;
+                if (endOfBatch) {
+                    for (Map.Entry<String, MarketDataUpdate> entry : updates.entrySet()) {
+                        MarketDataUpdate pending = entry.getValue();
+                        if (pending.dirty) {
+                            publishMarketData(entry.getKey(), pending.lastPrice, pending.volume);
+                            pending.volume = 0;
+                            pending.dirty = false;
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                logger.error("Error publishing market data for trade {}", trade, e);
+            }
+        }
+    }
+
+    private static final class MarketDataUpdate {
+        private long lastPrice;
+        private long volume;
+        private boolean dirty;
+    }
+
+    private final class TradeLogger implements EventHandler<TradeEvent> {
+        private int pending;
+
+        @Override
+        public void onEvent(TradeEvent trade, long sequence, boolean endOfBatch) {
+            try {
+                logTrade(trade);
+                pending++;
+                if (endOfBatch) {
+                    flushTradeLog(pending);
+                    pending = 0;
+                }
+            } catch (Exception e) {
+                logger.error("Error logging trade {}", trade, e);
+            }
+        }
+    }
+
+    private void notifyTradeParticipants(TradeEvent trade) {
         // Implementar notificación a participantes
     }
 
-    private void publishMarketData(Trade trade) {
+    private void flushNotifications(int count) {
+        // Implementar envío agrupado de notificaciones
+    }
+
+    private void publishMarketData(String symbol, long lastPrice, long volume) {
         // Implementar publicación de market data
     }
 
-    private void logTrade(Trade trade) {
+    private void logTrade(TradeEvent trade) {
         // Implementar logging de trades
     }
 
+    private void flushTradeLog(int count) {
+        // Implementar flush del log de trades
+    }
+
     // Métodos para consultas y estadísticas
     public OrderBook.BookSnapshot getOrderBookSnapshot(String symbol) {
-        return orderBook.getSnapshot(symbol);
+        OrderBook book = bookFor(symbol);
+        return book != null ? book.getSnapshot(symbol) : null;
+    }
+
+    public OrderBook.TradingPhase getTradingPhase(String symbol) {
+        OrderBook book = bookFor(symbol);
+        return book != null ? book.getTradingPhase(symbol) : OrderBook.TradingPhase.CONTINUOUS;
+    }
+
+    public OrderBook.BookSnapshot getOrderBookSnapshot(String symbol, int depth) {
+        OrderBook book = bookFor(symbol);
+        return book != null ? book.getSnapshot(symbol, depth) : null;
     }
 }
\ No newline at end of file
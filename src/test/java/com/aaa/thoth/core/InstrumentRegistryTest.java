@@ -0,0 +1,46 @@
+package com.aaa.thoth.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("InstrumentRegistry Tests")
+class InstrumentRegistryTest {
+
+    @Test
+    void shouldAssignDenseIdsOncePerSymbol() {
+        InstrumentRegistry registry = new InstrumentRegistry(4);
+
+        int aapl = registry.register("AAPL");
+        int msft = registry.register("MSFT", PriceScale.of(4));
+
+        assertThat(aapl).isZero();
+        assertThat(msft).isEqualTo(1);
+        assertThat(registry.register("AAPL")).isEqualTo(aapl);
+        assertThat(registry.idOf("MSFT")).isEqualTo(msft);
+        assertThat(registry.idOf("TSLA")).isEqualTo(InstrumentRegistry.UNKNOWN_SYMBOL);
+        assertThat(registry.symbolOf(msft)).isEqualTo("MSFT");
+        assertThat(registry.scaleOf(msft).decimals()).isEqualTo(4);
+        assertThat(registry.scaleOf(aapl)).isEqualTo(PriceScale.DEFAULT);
+    }
+
+    @Test
+    void shouldKeepIdWhenScaleChanges() {
+        InstrumentRegistry registry = new InstrumentRegistry(4);
+        int id = registry.register("AAPL");
+
+        assertThat(registry.register("AAPL", PriceScale.of(3))).isEqualTo(id);
+        assertThat(registry.scaleOf("AAPL").decimals()).isEqualTo(3);
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectSymbolsBeyondCapacity() {
+        InstrumentRegistry registry = new InstrumentRegistry(1);
+        registry.register("AAPL");
+
+        assertThatThrownBy(() -> registry.register("MSFT"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -34,12 +34,14 @@ class OrderTest {
             assertThat(order).isNotNull();
             assertThat(order.symbol()).isEqualTo("AAPL");
             assertThat(order.side()).isEqualTo(OrderSide.BUY);
-            assertThat(order.price()).isEqualTo(150.0);
+            assertThat(order.price()).isEqualTo(15000L);
+            assertThat(order.decimalPrice()).isEqualTo(150.0);
             assertThat(order.quantity()).isEqualTo(100L);
             assertThat(order.traderId()).isEqualTo("TRADER1");
             assertThat(order.type()).isEqualTo(OrderType.LIMIT);
             assertThat(order.status()).isEqualTo(OrderStatus.NEW);
-            assertThat(order.orderId()).isNotNull().isNotBlank();
+            assertThat(order.orderId()).isZero();
+            assertThat(order.clientOrderId()).isNotNull().isNotBlank();
         }
 
         @Test
@@ -97,6 +99,32 @@ class OrderTest {
                     .hasMessageContaining("Price must be positive");
         }
 
+        @Test
+        @DisplayName("Should reject prices that are not on the tick grid")
+        void shouldRejectPricesOffTickGrid() {
+            assertThatThrownBy(() ->
+                    Order.limitOrder(
+                            "AAPL",
+                            OrderSide.BUY,
+                            150.105,
+                            100L,
+                            "TRADER1"
+                    )
+            )
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("tick size");
+        }
+
+        @Test
+        @DisplayName("Should normalize floating point noise to the same tick")
+        void shouldNormalizeFloatingPointNoise() {
+            Order order1 = Order.limitOrder("AAPL", OrderSide.BUY, 150.10, 100L, "TRADER1");
+            Order order2 = Order.limitOrder("AAPL", OrderSide.BUY, 150.1000000001, 100L, "TRADER1");
+
+            assertThat(order1.price()).isEqualTo(15010L);
+            assertThat(order2.price()).isEqualTo(order1.price());
+        }
+
         @ParameterizedTest
         @ValueSource(longs = {-1L, 0L})
         @DisplayName("Should throw exception for invalid quantities")
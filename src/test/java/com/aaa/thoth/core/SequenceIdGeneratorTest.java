@@ -0,0 +1,43 @@
+package com.aaa.thoth.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("SequenceIdGenerator Tests")
+class SequenceIdGeneratorTest {
+    private static final long START = SequenceIdGenerator.CUSTOM_EPOCH_MILLIS + 86_400_000L;
+
+    @Test
+    void shouldGenerateMonotonicIdsAcrossSequenceOverflow() {
+        SequenceIdGenerator generator = new SequenceIdGenerator(7, START);
+
+        long previous = 0L;
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            assertThat(SequenceIdGenerator.nodeOf(id)).isEqualTo(7);
+            previous = id;
+        }
+        assertThat(SequenceIdGenerator.timestampOf(previous)).isGreaterThan(START);
+    }
+
+    @Test
+    void shouldReplayIdenticalIdsForSameNodeAndStart() {
+        SequenceIdGenerator original = new SequenceIdGenerator(3, START);
+        SequenceIdGenerator replay = new SequenceIdGenerator(3, START);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(replay.nextId()).isEqualTo(original.nextId());
+        }
+        assertThat(SequenceIdGenerator.timestampOf(new SequenceIdGenerator(3, START).nextId()))
+                .isEqualTo(START);
+    }
+
+    @Test
+    void shouldRejectInvalidNode() {
+        assertThatThrownBy(() -> new SequenceIdGenerator(SequenceIdGenerator.MAX_NODE_ID + 1, START))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
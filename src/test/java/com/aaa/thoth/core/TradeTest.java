@@ -41,14 +41,15 @@ class TradeTest {
         @DisplayName("Should create valid trade")
         void shouldCreateValidTrade() {
             // When
-            Trade trade = Trade.createTrade(buyOrder, sellOrder, 150.0, 50L);
+            Trade trade = Trade.createTrade(buyOrder, sellOrder, 15000L, 50L);
 
             // Then
             assertThat(trade).isNotNull();
             assertThat(trade.symbol()).isEqualTo("AAPL");
-            assertThat(trade.price()).isEqualTo(150.0);
+            assertThat(trade.price()).isEqualTo(15000L);
+            assertThat(trade.decimalPrice()).isEqualTo(150.0);
             assertThat(trade.quantity()).isEqualTo(50L);
-            assertThat(trade.tradeId()).isNotNull().isNotBlank();
+            assertThat(trade.tradeId()).isPositive();
             assertThat(trade.timestamp()).isNotNull();
         }
 
@@ -56,7 +57,7 @@ class TradeTest {
         @DisplayName("Should calculate total correctly")
         void shouldCalculateTotalCorrectly() {
             // When
-            Trade trade = Trade.createTrade(buyOrder, sellOrder, 150.0, 50L);
+            Trade trade = Trade.createTrade(buyOrder, sellOrder, 15000L, 50L);
 
             // Then
             assertThat(trade.getTotal()).isEqualTo(7500.0); // 150.0 * 50
@@ -81,7 +82,7 @@ class TradeTest {
 
             // Then
             assertThatThrownBy(() ->
-                    Trade.createTrade(buyOrder, differentSymbolOrder, 150.0, 50L)
+                    Trade.createTrade(buyOrder, differentSymbolOrder, 15000L, 50L)
             )
                     .isInstanceOf(IllegalArgumentException.class)
                     .hasMessageContaining("same symbol");
@@ -101,7 +102,7 @@ class TradeTest {
 
             // Then
             assertThatThrownBy(() ->
-                    Trade.createTrade(buyOrder, anotherBuyOrder, 150.0, 50L)
+                    Trade.createTrade(buyOrder, anotherBuyOrder, 15000L, 50L)
             )
                     .isInstanceOf(IllegalArgumentException.class)
                     .hasMessageContaining("opposite sides");
@@ -111,7 +112,7 @@ class TradeTest {
         @DisplayName("Should throw exception for invalid quantity")
         void shouldThrowExceptionForInvalidQuantity() {
             assertThatThrownBy(() ->
-                    Trade.createTrade(buyOrder, sellOrder, 150.0, 0L)
+                    Trade.createTrade(buyOrder, sellOrder, 15000L, 0L)
             )
                     .isInstanceOf(IllegalArgumentException.class)
                     .hasMessageContaining("quantity must be positive");
@@ -126,7 +127,7 @@ class TradeTest {
         @DisplayName("Should identify buyer and seller correctly")
         void shouldIdentifyBuyerAndSellerCorrectly() {
             // When
-            Trade trade = Trade.createTrade(buyOrder, sellOrder, 150.0, 50L);
+            Trade trade = Trade.createTrade(buyOrder, sellOrder, 15000L, 50L);
 
             // Then
             assertThat(trade.getBuyOrder()).isEqualTo(buyOrder);
@@ -139,7 +140,7 @@ class TradeTest {
         @DisplayName("Should handle exchange ID correctly")
         void shouldHandleExchangeIdCorrectly() {
             // Given
-            Trade trade = Trade.createTrade(buyOrder, sellOrder, 150.0, 50L);
+            Trade trade = Trade.createTrade(buyOrder, sellOrder, 15000L, 50L);
 
             // When
             Trade tradeWithExchangeId = trade.withExchangeId("EX123");
@@ -0,0 +1,40 @@
+package com.aaa.thoth.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("AdmissionControl Tests")
+class AdmissionControlTest {
+
+    @Test
+    @DisplayName("Should cap in-flight orders per trader and free quota on release")
+    void shouldCapInFlightOrdersPerTrader() {
+        // Given: ring de 16 con 1/8 por trader
+        AdmissionControl admission = new AdmissionControl(16, 1.0, 0.125);
+
+        // When / Then
+        assertThat(admission.acquire("TRADER1")).isTrue();
+        assertThat(admission.acquire("TRADER1")).isTrue();
+        assertThat(admission.acquire("TRADER1")).isFalse();
+        assertThat(admission.acquire("TRADER2")).isTrue();
+        assertThat(admission.inFlight("TRADER1")).isEqualTo(2);
+
+        admission.release("TRADER1");
+        assertThat(admission.acquire("TRADER1")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should flag the ring as busy from the configured fill ratio")
+    void shouldFlagBusyRing() {
+        // Given
+        AdmissionControl admission = new AdmissionControl(1024, 0.75, 1.0);
+
+        // When / Then
+        assertThat(admission.isBusy(767)).isFalse();
+        assertThat(admission.isBusy(768)).isTrue();
+        assertThat(admission.acquire("TRADER1")).isTrue();
+        assertThat(admission.inFlight("TRADER1")).isZero();
+    }
+}
@@ -0,0 +1,120 @@
+package com.aaa.thoth.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("DenseBookSide Tests")
+class DenseBookSideTest {
+
+    private static List<Long> prices(BookSide side) {
+        List<Long> prices = new ArrayList<>();
+        side.forEachLevel(level -> prices.add(level.price));
+        return prices;
+    }
+
+    @Test
+    @DisplayName("Should track best ask with cursor as levels are removed")
+    void shouldTrackBestAskWithCursor() {
+        // Given
+        DenseBookSide asks = new DenseBookSide(false, 16);
+        asks.getOrCreate(100);
+        asks.getOrCreate(103);
+        asks.getOrCreate(101);
+
+        // When / Then
+        assertThat(asks.best().price).isEqualTo(100);
+        asks.removeLevel(asks.best());
+        assertThat(asks.best().price).isEqualTo(101);
+        asks.removeLevel(asks.best());
+        assertThat(asks.best().price).isEqualTo(103);
+        asks.removeLevel(asks.best());
+        assertThat(asks.isEmpty()).isTrue();
+        assertThat(asks.best()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should keep far prices in the skip list fallback")
+    void shouldKeepFarPricesInFallback() {
+        // Given
+        DenseBookSide bids = new DenseBookSide(true, 16);
+        bids.getOrCreate(1000);
+        bids.getOrCreate(998);
+
+        // When - a price far below the touch
+        OrderList far = bids.getOrCreate(10);
+
+        // Then
+        assertThat(bids.levelCount()).isEqualTo(3);
+        assertThat(bids.get(10)).isSameAs(far);
+        assertThat(prices(bids)).containsExactly(1000L, 998L, 10L);
+    }
+
+    @Test
+    @DisplayName("Should recentre when a better price arrives outside the window")
+    void shouldRecentreOnBetterPriceOutsideWindow() {
+        // Given
+        DenseBookSide bids = new DenseBookSide(true, 16);
+        OrderList level1000 = bids.getOrCreate(1000);
+        bids.getOrCreate(995);
+
+        // When
+        bids.getOrCreate(2000);
+
+        // Then
+        assertThat(bids.best().price).isEqualTo(2000);
+        assertThat(bids.get(1000)).isSameAs(level1000);
+        assertThat(prices(bids)).containsExactly(2000L, 1000L, 995L);
+    }
+
+    @Test
+    @DisplayName("Should pull fallback levels back into the ladder when it empties")
+    void shouldRecentreOnFallbackWhenLadderEmpties() {
+        // Given
+        DenseBookSide asks = new DenseBookSide(false, 16);
+        OrderList near = asks.getOrCreate(100);
+        asks.getOrCreate(500);
+        asks.getOrCreate(505);
+
+        // When
+        asks.removeLevel(near);
+
+        // Then
+        assertThat(asks.best().price).isEqualTo(500);
+        asks.removeLevel(asks.best());
+        assertThat(asks.best().price).isEqualTo(505);
+        assertThat(asks.levelCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should sum executable quantity across ladder and fallback up to a limit")
+    void shouldSumAvailableQuantityUpToLimit() {
+        // Given: ventana de 16 ticks centrada en 1000; 1100 cae en el skip list
+        DenseBookSide asks = new DenseBookSide(false, 16);
+        addOrder(asks, 1000, 10);
+        addOrder(asks, 1002, 20);
+        addOrder(asks, 1005, 30);
+        addOrder(asks, 1100, 40);
+
+        // When / Then
+        assertThat(asks.availableQuantity(999, Long.MAX_VALUE)).isZero();
+        assertThat(asks.availableQuantity(1002, Long.MAX_VALUE)).isEqualTo(30);
+        assertThat(asks.availableQuantity(1100, Long.MAX_VALUE)).isEqualTo(100);
+        assertThat(asks.availableQuantity(Long.MAX_VALUE, Long.MAX_VALUE)).isEqualTo(100);
+
+        asks.get(1002).fill(asks.get(1002).first(), 15);
+        assertThat(asks.availableQuantity(1005, Long.MAX_VALUE)).isEqualTo(45);
+    }
+
+    private static void addOrder(BookSide side, long price, long quantity) {
+        OrderEntry entry = new OrderEntry();
+        entry.price = price;
+        entry.quantity = quantity;
+        entry.visibleQuantity = quantity;
+        side.getOrCreate(price).addOrder(entry);
+    }
+}
@@ -3,10 +3,16 @@ package com.aaa.thoth.engine;
 import com.aaa.thoth.core.Order;
 import com.aaa.thoth.core.Trade;
 import com.aaa.thoth.core.enums.OrderSide;
+import com.aaa.thoth.core.enums.OrderStatus;
+import com.aaa.thoth.core.enums.OrderType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.*;
 
 @DisplayName("OrderBook Tests")
@@ -42,7 +48,7 @@ class OrderBookTest {
                 .hasSize(1)
                 .first()
                 .satisfies(level -> {
-                    assertThat(level.price()).isEqualTo(150.0);
+                    assertThat(level.price()).isEqualTo(15000L);
                     assertThat(level.quantity()).isEqualTo(100L);
                     assertThat(level.orderCount()).isEqualTo(1);
                 });
@@ -61,10 +67,12 @@ class OrderBookTest {
                 .hasSize(1)
                 .first()
                 .satisfies(trade -> {
-                    assertThat(trade.price()).isEqualTo(150.0);
+                    assertThat(trade.price()).isEqualTo(15000L);
                     assertThat(trade.quantity()).isEqualTo(50L);
-                    assertThat(trade.makerOrder().orderId()).isEqualTo(sellOrder.orderId());
-                    assertThat(trade.takerOrder().orderId()).isEqualTo(buyOrder.orderId());
+                    assertThat(trade.makerOrder().clientOrderId()).isEqualTo(sellOrder.clientOrderId());
+                    assertThat(trade.takerOrder().clientOrderId()).isEqualTo(buyOrder.clientOrderId());
+                    assertThat(trade.makerOrder().orderId()).isPositive();
+                    assertThat(trade.takerOrder().orderId()).isNotEqualTo(trade.makerOrder().orderId());
                 });
 
         // Verify the remaining sell order in book
@@ -73,7 +81,7 @@ class OrderBookTest {
                 .hasSize(1)
                 .first()
                 .satisfies(level -> {
-                    assertThat(level.price()).isEqualTo(150.0);
+                    assertThat(level.price()).isEqualTo(15000L);
                     assertThat(level.quantity()).isEqualTo(50L);
                     assertThat(level.orderCount()).isEqualTo(1);
                 });
@@ -94,8 +102,8 @@ class OrderBookTest {
 
         // Then
         assertThat(result.trades()).hasSize(2);
-        assertThat(result.trades().get(0).price()).isEqualTo(149.0);
-        assertThat(result.trades().get(1).price()).isEqualTo(150.0);
+        assertThat(result.trades().get(0).price()).isEqualTo(14900L);
+        assertThat(result.trades().get(1).price()).isEqualTo(15000L);
     }
 
     @Test
@@ -113,7 +121,536 @@ class OrderBookTest {
         // Then
         assertThat(snapshot.asks()).hasSize(2);
         assertThat(snapshot.bids()).isEmpty();
-        assertThat(snapshot.asks().get(0).price()).isEqualTo(150.0);
-        assertThat(snapshot.asks().get(1).price()).isEqualTo(151.0);
+        assertThat(snapshot.asks().get(0).price()).isEqualTo(15000L);
+        assertThat(snapshot.asks().get(1).price()).isEqualTo(15100L);
+    }
+
+    @Test
+    @DisplayName("Should serve cached top-N snapshots until the book changes")
+    void shouldServeCachedTopNSnapshotsUntilBookChanges() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 150.0 + i, 100L, "TRADER1"));
+        }
+
+        // When
+        OrderBook.BookSnapshot top2 = orderBook.getSnapshot("AAPL", 2);
+        OrderBook.BookSnapshot top1 = orderBook.getSnapshot("AAPL", 1);
+        OrderBook.BookSnapshot again = orderBook.getSnapshot("AAPL", 2);
+        OrderBook.BookSnapshot full = orderBook.getSnapshot("AAPL");
+
+        // Then: lectores que alternan profundidades no invalidan la vista del otro
+        assertThat(top2.asks()).extracting(OrderBook.PriceLevel::price)
+                .containsExactly(15000L, 15100L);
+        assertThat(again).isSameAs(top2);
+        assertThat(orderBook.getSnapshot("AAPL", 1)).isSameAs(top1);
+        assertThat(orderBook.getSnapshot("AAPL")).isSameAs(full);
+        assertThat(full.asks()).hasSize(5);
+        assertThatThrownBy(() -> top2.asks().clear())
+                .isInstanceOf(UnsupportedOperationException.class);
+
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 149.0, 100L, "TRADER2"));
+        OrderBook.BookSnapshot updated = orderBook.getSnapshot("AAPL", 2);
+
+        assertThat(updated).isNotSameAs(top2);
+        assertThat(updated.version()).isGreaterThan(top2.version());
+        assertThat(updated.asks()).extracting(OrderBook.PriceLevel::price)
+                .containsExactly(14900L, 15000L);
+    }
+
+    @Test
+    @DisplayName("Should aggregate equivalent decimal prices into one level")
+    void shouldAggregateEquivalentDecimalPricesIntoOneLevel() {
+        // Given
+        Order sell1 = Order.limitOrder("AAPL", OrderSide.SELL, 150.10, 100L, "TRADER1");
+        Order sell2 = Order.limitOrder("AAPL", OrderSide.SELL, 150.1000000001, 50L, "TRADER2");
+
+        // When
+        orderBook.processOrder(sell1);
+        orderBook.processOrder(sell2);
+        OrderBook.BookSnapshot snapshot = orderBook.getSnapshot("AAPL");
+
+        // Then
+        assertThat(snapshot.asks())
+                .hasSize(1)
+                .first()
+                .satisfies(level -> {
+                    assertThat(level.price()).isEqualTo(15010L);
+                    assertThat(level.quantity()).isEqualTo(150L);
+                    assertThat(level.orderCount()).isEqualTo(2);
+                });
+    }
+
+    @Test
+    @DisplayName("Should respect limit price for IOC orders")
+    void shouldRespectLimitPriceForIocOrders() {
+        // Given
+        Order sell = Order.limitOrder("AAPL", OrderSide.SELL, 151.0, 100L, "TRADER1");
+        Order limitBuy = Order.limitOrder("AAPL", OrderSide.BUY, 150.0, 100L, "TRADER2");
+        Order iocBuy = new Order(0L, "AAPL", OrderType.IOC, OrderSide.BUY, limitBuy.price(), 0L,
+                100L, 0L, 100L, 0L, "TRADER2", null, null, null, null, null, 0, null);
+
+        // When
+        orderBook.processOrder(sell);
+        OrderBook.MatchingResult result = orderBook.processOrder(iocBuy);
+
+        // Then
+        assertThat(result.trades()).isEmpty();
+        assertThat(orderBook.getSnapshot("AAPL").bids()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should match across ladder and fallback levels with dense book")
+    void shouldMatchAcrossLadderAndFallbackWithDenseBook() {
+        // Given
+        OrderBook denseBook = new OrderBook();
+        denseBook.configureSymbol("AAPL", OrderBook.BookType.DENSE_LADDER, 64);
+        denseBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 100L, "TRADER1"));
+        denseBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 150.05, 100L, "TRADER1"));
+        denseBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 190.0, 100L, "TRADER1"));
+
+        // When
+        OrderBook.MatchingResult result = denseBook.processOrder(
+                Order.marketOrder("AAPL", OrderSide.BUY, 250L, "TRADER2"));
+
+        // Then
+        assertThat(result.trades()).extracting(Trade::price)
+                .containsExactly(15000L, 15005L, 19000L);
+        assertThat(denseBook.getSnapshot("AAPL").asks())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(50L));
+        assertThatThrownBy(() -> denseBook.configureSymbol("AAPL", OrderBook.BookType.SKIP_LIST))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Should cancel an order from the middle of a level keeping queue priority")
+    void shouldCancelFromMiddleOfLevel() {
+        // Given
+        Order sell1 = Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 10L, "TRADER1");
+        Order sell2 = Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 20L, "TRADER2");
+        Order sell3 = Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 30L, "TRADER3");
+        orderBook.processOrder(sell1);
+        long sell2Id = orderBook.processOrder(sell2).remainingOrder().orderId();
+        orderBook.processOrder(sell3);
+
+        // When
+        orderBook.cancelOrder("AAPL", sell2Id);
+
+        // Then
+        assertThat(orderBook.getSnapshot("AAPL").asks())
+                .singleElement()
+                .satisfies(level -> {
+                    assertThat(level.quantity()).isEqualTo(40L);
+                    assertThat(level.orderCount()).isEqualTo(2);
+                });
+
+        OrderBook.MatchingResult result = orderBook.processOrder(
+                Order.marketOrder("AAPL", OrderSide.BUY, 40L, "TRADER4"));
+        assertThat(result.trades()).extracting(trade -> trade.makerOrder().clientOrderId())
+                .containsExactly(sell1.clientOrderId(), sell3.clientOrderId());
+        assertThat(orderBook.getSnapshot("AAPL").asks()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should report fill progress on resting and remaining orders")
+    void shouldReportFillProgress() {
+        // Given
+        Order sell = Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 100L, "TRADER1");
+        orderBook.processOrder(sell);
+
+        // When
+        OrderBook.MatchingResult first = orderBook.processOrder(
+                Order.limitOrder("AAPL", OrderSide.BUY, 150.0, 30L, "TRADER2"));
+        OrderBook.MatchingResult second = orderBook.processOrder(
+                Order.limitOrder("AAPL", OrderSide.BUY, 150.0, 100L, "TRADER3"));
+
+        // Then
+        assertThat(first.remainingOrder()).isNull();
+        assertThat(second.trades()).singleElement().satisfies(trade -> {
+            assertThat(trade.quantity()).isEqualTo(70L);
+            assertThat(trade.makerOrder().filledQuantity()).isEqualTo(30L);
+            assertThat(trade.makerOrder().status()).isEqualTo(OrderStatus.PARTIALLY_FILLED);
+        });
+        assertThat(second.remainingOrder().filledQuantity()).isEqualTo(70L);
+        assertThat(second.remainingOrder().status()).isEqualTo(OrderStatus.PARTIALLY_FILLED);
+        assertThat(orderBook.getSnapshot("AAPL").bids())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(30L));
+    }
+
+    @Test
+    @DisplayName("Should stream fills and residual to a match listener")
+    void shouldStreamFillsToMatchListener() {
+        // Given
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 30L, "TRADER1"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 150.5, 30L, "TRADER1"));
+        List<String> events = new ArrayList<>();
+        MatchListener listener = new MatchListener() {
+            @Override
+            public void onTrade(OrderEntry maker, OrderEntry taker, long price, long quantity) {
+                events.add("trade " + price + "x" + quantity + " taker filled " + taker.filledQuantity());
+            }
+
+            @Override
+            public void onOrderProcessed(OrderEntry order, boolean resting) {
+                events.add("done " + order.status() + " resting=" + resting + " left " + order.remainingQuantity());
+            }
+        };
+
+        // When
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 151.0, 100L, "TRADER2"), listener);
+
+        // Then
+        assertThat(events).containsExactly(
+                "trade 15000x30 taker filled 30",
+                "trade 15050x30 taker filled 60",
+                "done PARTIALLY_FILLED resting=true left 40");
+        assertThat(orderBook.getSnapshot("AAPL").bids())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(40L));
+    }
+
+    @Test
+    @DisplayName("Should trigger cascading stops in stop price order")
+    void shouldTriggerCascadingStops() {
+        // Given
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 150.0, 10L, "TRADER1"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 149.0, 100L, "TRADER1"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 148.0, 100L, "TRADER1"));
+        OrderBook.MatchingResult parked = orderBook.processOrder(stopOrder(OrderType.STOP, 14850L, 100L));
+        orderBook.processOrder(stopOrder(OrderType.STOP, 14950L, 100L));
+        orderBook.processOrder(stopOrder(OrderType.STOP_LIMIT, 14700L, 100L));
+        List<String> triggered = new ArrayList<>();
+        MatchListener listener = new MatchListener() {
+            @Override
+            public void onTrade(OrderEntry maker, OrderEntry taker, long price, long quantity) {
+            }
+
+            @Override
+            public void onOrderProcessed(OrderEntry order, boolean resting) {
+            }
+
+            @Override
+            public void onStopTriggered(OrderEntry order, boolean resting) {
+                triggered.add(order.stopPrice() + " filled " + order.filledQuantity() + " resting=" + resting);
+            }
+        };
+
+        // When: el trade a 150 no activa nada
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 10L, "TRADER2"), listener);
+        assertThat(parked.remainingOrder().status()).isEqualTo(OrderStatus.NEW);
+        assertThat(triggered).isEmpty();
+
+        // El trade a 149 activa el stop de 149.50, que barre hasta 148 y activa el de 148.50
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 149.0, 10L, "TRADER2"), listener);
+
+        // Then
+        assertThat(triggered).containsExactly(
+                "14950 filled 100 resting=false",
+                "14850 filled 90 resting=false");
+        assertThat(orderBook.getStatistics("AAPL").lastPrice()).isEqualTo(14800L);
+        assertThat(orderBook.getSnapshot("AAPL").bids()).isEmpty();
+        assertThat(orderBook.getSnapshot("AAPL").asks()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should cancel a parked stop before it triggers")
+    void shouldCancelParkedStop() {
+        // Given
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 149.0, 100L, "TRADER1"));
+        long stopId = orderBook.processOrder(stopOrder(OrderType.STOP, 14950L, 50L)).remainingOrder().orderId();
+
+        // When
+        orderBook.cancelOrder("AAPL", stopId);
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 149.0, 10L, "TRADER2"));
+
+        // Then
+        assertThat(orderBook.getSnapshot("AAPL").bids())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(90L));
+    }
+
+    @Test
+    @DisplayName("Should only amend the quantity of a parked plain stop")
+    void shouldRejectPriceAmendOnParkedStop() {
+        // Given
+        long stopId = orderBook.processOrder(stopOrder(OrderType.STOP, 14950L, 50L)).remainingOrder().orderId();
+
+        // When
+        OrderBook.MatchingResult repriced = orderBook.amendOrder("AAPL", stopId, 14000L, 50L);
+        OrderBook.MatchingResult resized = orderBook.amendOrder("AAPL", stopId, 14950L, 30L);
+
+        // Then
+        assertThat(repriced).isNull();
+        assertThat(resized.remainingOrder().quantity()).isEqualTo(30L);
+        assertThat(resized.remainingOrder().price()).isEqualTo(14950L);
+    }
+
+    private static Order stopOrder(OrderType type, long stopPrice, long quantity) {
+        return new Order(0L, "AAPL", type, OrderSide.SELL, stopPrice, stopPrice, quantity, 0L, quantity, 0L,
+                "TRADER3", null, null, null, null, null, 0, null);
+    }
+
+    @Test
+    @DisplayName("Should show only the iceberg slice and refill it at the back of the queue")
+    void shouldRefillIcebergSliceAtBackOfQueue() {
+        // Given
+        Order iceberg = new Order(0L, "AAPL", OrderType.ICEBERG, OrderSide.SELL, 15000L, 0L,
+                1000L, 0L, 100L, 0L, "TRADER1", null, null, null, null, null, 0, null);
+        Order visible = Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 50L, "TRADER2");
+        orderBook.processOrder(iceberg);
+        orderBook.processOrder(visible);
+        assertThat(orderBook.getSnapshot("AAPL").asks())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(150L));
+
+        // When
+        OrderBook.MatchingResult result = orderBook.processOrder(
+                Order.limitOrder("AAPL", OrderSide.BUY, 150.0, 120L, "TRADER3"));
+
+        // Then: la porción de 100 se agota, la reserva repone otra al final de la cola
+        assertThat(result.trades()).extracting(trade -> trade.makerOrder().clientOrderId())
+                .containsExactly(iceberg.clientOrderId(), visible.clientOrderId());
+        assertThat(result.trades()).extracting(Trade::quantity).containsExactly(100L, 20L);
+        assertThat(orderBook.getSnapshot("AAPL").asks())
+                .singleElement()
+                .satisfies(level -> {
+                    assertThat(level.quantity()).isEqualTo(130L);
+                    assertThat(level.orderCount()).isEqualTo(2);
+                });
+    }
+
+    @Test
+    @DisplayName("Should kill FOK orders without partial fills")
+    void shouldKillFokWithoutPartialFills() {
+        // Given
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 60L, "TRADER1"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 151.0, 60L, "TRADER1"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 152.0, 60L, "TRADER1"));
+
+        // When
+        OrderBook.MatchingResult killed = orderBook.processOrder(fokBuy(15100L, 150L));
+        OrderBook.MatchingResult filled = orderBook.processOrder(fokBuy(15200L, 150L));
+
+        // Then
+        assertThat(killed.trades()).isEmpty();
+        assertThat(killed.remainingOrder().status()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(filled.trades()).extracting(Trade::quantity).containsExactly(60L, 60L, 30L);
+        assertThat(filled.remainingOrder()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should count iceberg reserve when checking minimum quantity on a dense book")
+    void shouldCheckMinimumQuantityAgainstDenseLadder() {
+        // Given
+        OrderBook denseBook = new OrderBook(OrderBook.BookType.DENSE_LADDER);
+        denseBook.processOrder(new Order(0L, "AAPL", OrderType.ICEBERG, OrderSide.BUY, 15000L, 0L,
+                500L, 0L, 50L, 0L, "TRADER1", null, null, null, null, null, 0, null));
+        denseBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 149.0, 100L, "TRADER1"));
+
+        // When
+        OrderBook.MatchingResult rejected = denseBook.processOrder(
+                Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 600L, "TRADER2").withMinQuantity(501L));
+        OrderBook.MatchingResult accepted = denseBook.processOrder(
+                Order.limitOrder("AAPL", OrderSide.SELL, 149.0, 700L, "TRADER2").withMinQuantity(600L));
+
+        // Then
+        assertThat(rejected.trades()).isEmpty();
+        assertThat(rejected.remainingOrder().status()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(accepted.trades().stream().mapToLong(Trade::quantity).sum()).isEqualTo(600L);
+        assertThat(accepted.remainingOrder().getRemainingQuantity()).isEqualTo(100L);
+        assertThat(denseBook.getSnapshot("AAPL").asks())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(100L));
+    }
+
+    private static Order fokBuy(long price, long quantity) {
+        return new Order(0L, "AAPL", OrderType.FOK, OrderSide.BUY, price, 0L, quantity, 0L, quantity, 0L,
+                "TRADER2", null, null, null, null, null, 0, null);
+    }
+
+    @Test
+    @DisplayName("Should expire GTD orders at their deadline and day orders at session end")
+    void shouldExpireRestingOrders() {
+        // Given
+        Instant now = Instant.now();
+        Order gtd = expiringBuy(14900L, now, now.plusSeconds(60));
+        Order day = expiringBuy(14800L, now, now.plusSeconds(3600));
+        Order gtc = Order.limitOrder("AAPL", OrderSide.BUY, 147.0, 100L, "TRADER1");
+        orderBook.processOrder(gtd);
+        orderBook.processOrder(day);
+        orderBook.processOrder(gtc);
+        List<String> expired = new ArrayList<>();
+        MatchListener listener = new MatchListener() {
+            @Override
+            public void onTrade(OrderEntry maker, OrderEntry taker, long price, long quantity) {
+            }
+
+            @Override
+            public void onOrderProcessed(OrderEntry order, boolean resting) {
+            }
+
+            @Override
+            public void onOrderExpired(OrderEntry order) {
+                expired.add(order.clientOrderId() + " " + order.status());
+            }
+        };
+
+        // When / Then
+        orderBook.expireOrders(now.plusSeconds(59).toEpochMilli(), listener);
+        assertThat(expired).isEmpty();
+
+        orderBook.expireOrders(now.plusSeconds(61).toEpochMilli(), listener);
+        assertThat(expired).containsExactly(gtd.clientOrderId() + " EXPIRED");
+        assertThat(orderBook.getSnapshot("AAPL").bids()).extracting(OrderBook.PriceLevel::price)
+                .containsExactly(14800L, 14700L);
+
+        orderBook.expireSession(listener);
+        assertThat(expired).containsExactly(gtd.clientOrderId() + " EXPIRED", day.clientOrderId() + " EXPIRED");
+        assertThat(orderBook.getSnapshot("AAPL").bids()).extracting(OrderBook.PriceLevel::price)
+                .containsExactly(14700L);
+    }
+
+    private static Order expiringBuy(long price, Instant createdAt, Instant expiresAt) {
+        return new Order(0L, "AAPL", OrderType.LIMIT, OrderSide.BUY, price, 0L, 100L, 0L, 100L, 0L,
+                "TRADER1", null, null, createdAt, createdAt, expiresAt, 0, null);
+    }
+
+    @Test
+    @DisplayName("Should mass cancel by trader, side and symbol including parked stops")
+    void shouldMassCancelOrders() {
+        // Given
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 149.0, 100L, "TRADER1"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 148.0, 100L, "TRADER1"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 151.0, 100L, "TRADER1"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 149.0, 50L, "TRADER2"));
+        orderBook.processOrder(Order.limitOrder("MSFT", OrderSide.BUY, 300.0, 10L, "TRADER1"));
+        orderBook.processOrder(stopOrder(OrderType.STOP, 14500L, 50L));
+        List<String> cancelled = new ArrayList<>();
+        MatchListener listener = new MatchListener() {
+            @Override
+            public void onTrade(OrderEntry maker, OrderEntry taker, long price, long quantity) {
+            }
+
+            @Override
+            public void onOrderProcessed(OrderEntry order, boolean resting) {
+            }
+
+            @Override
+            public void onOrderCancelled(OrderEntry order) {
+                cancelled.add(order.traderId() + " " + order.status());
+            }
+        };
+
+        // When / Then: solo las compras de TRADER1 en AAPL
+        assertThat(orderBook.cancelOrders("TRADER1", "AAPL", OrderSide.BUY, listener)).isEqualTo(2);
+        assertThat(cancelled).containsOnly("TRADER1 CANCELLED");
+        assertThat(orderBook.getSnapshot("AAPL").bids()).singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(50L));
+
+        // When / Then: todas las ventas del símbolo, incluido el stop pendiente
+        assertThat(orderBook.cancelOrders(null, "AAPL", OrderSide.SELL, listener)).isEqualTo(2);
+        assertThat(orderBook.getSnapshot("AAPL").asks()).isEmpty();
+
+        // When / Then: lo que queda de TRADER1 en cualquier símbolo
+        assertThat(orderBook.cancelOrders("TRADER1", (String) null, null, listener)).isEqualTo(1);
+        assertThat(orderBook.getSnapshot("MSFT").bids()).isEmpty();
+        assertThat(orderBook.getSnapshot("AAPL").bids()).hasSize(1);
+        assertThat(cancelled).hasSize(5);
+    }
+
+    @Test
+    @DisplayName("Should collect orders during auction and uncross at the max-volume price")
+    void shouldUncrossAuctionAtEquilibriumPrice() {
+        // Given
+        orderBook.startAuction("AAPL");
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 101.0, 100L, "TRADER1"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 100.0, 100L, "TRADER2"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 99.0, 100L, "TRADER3"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 99.0, 50L, "TRADER4"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 100.0, 100L, "TRADER5"));
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.SELL, 102.0, 100L, "TRADER6"));
+        OrderBook.MatchingResult market = orderBook.processOrder(Order.marketOrder("AAPL", OrderSide.BUY, 10L, "TRADER7"));
+
+        // Then: nada se ejecutó y el libro queda cruzado
+        assertThat(market.trades()).isEmpty();
+        assertThat(market.remainingOrder().status()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(orderBook.getTradingPhase("AAPL")).isEqualTo(OrderBook.TradingPhase.AUCTION);
+        assertThat(orderBook.getStatistics("AAPL").spread()).isNegative();
+
+        // When
+        OrderBook.MatchingResult uncross = orderBook.uncross("AAPL", 0L);
+
+        // Then
+        assertThat(uncross.trades()).allSatisfy(trade -> assertThat(trade.price()).isEqualTo(10000L));
+        assertThat(uncross.trades().stream().mapToLong(Trade::quantity).sum()).isEqualTo(150L);
+        assertThat(orderBook.getTradingPhase("AAPL")).isEqualTo(OrderBook.TradingPhase.CONTINUOUS);
+        assertThat(orderBook.getSnapshot("AAPL").bids()).extracting(OrderBook.PriceLevel::quantity)
+                .containsExactly(50L, 100L);
+        assertThat(orderBook.getSnapshot("AAPL").asks()).extracting(OrderBook.PriceLevel::price)
+                .containsExactly(10200L);
+    }
+
+    @Test
+    @DisplayName("Should break uncross ties with the reference price")
+    void shouldBreakUncrossTiesWithReferencePrice() {
+        // Given: 100 y 101 ejecutan el mismo volumen sin desbalance
+        orderBook.startAuction("MSFT");
+        orderBook.processOrder(Order.limitOrder("MSFT", OrderSide.BUY, 101.0, 100L, "TRADER1"));
+        orderBook.processOrder(Order.limitOrder("MSFT", OrderSide.SELL, 100.0, 100L, "TRADER2"));
+        List<Long> prices = new ArrayList<>();
+        MatchListener listener = new MatchListener() {
+            @Override
+            public void onTrade(OrderEntry maker, OrderEntry taker, long price, long quantity) {
+                prices.add(price);
+            }
+
+            @Override
+            public void onOrderProcessed(OrderEntry order, boolean resting) {
+            }
+        };
+
+        // When
+        OrderBook.AuctionResult result = orderBook.uncross("MSFT", 10090L, listener);
+
+        // Then
+        assertThat(result).isEqualTo(new OrderBook.AuctionResult(10100L, 100L, 0L));
+        assertThat(prices).containsExactly(10100L);
+    }
+
+    @Test
+    @DisplayName("Should keep queue priority when amending size down and lose it on reprice")
+    void shouldAmendOrders() {
+        // Given
+        Order first = Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 100L, "TRADER1");
+        Order second = Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 100L, "TRADER2");
+        long firstId = orderBook.processOrder(first).remainingOrder().orderId();
+        orderBook.processOrder(second);
+        orderBook.processOrder(Order.limitOrder("AAPL", OrderSide.BUY, 149.0, 50L, "TRADER3"));
+
+        // When: reducir conserva la cabeza de la cola
+        OrderBook.MatchingResult reduced = orderBook.amendOrder("AAPL", firstId, 15000L, 40L);
+        OrderBook.MatchingResult firstFill = orderBook.processOrder(
+                Order.limitOrder("AAPL", OrderSide.BUY, 150.0, 10L, "TRADER4"));
+
+        // Then
+        assertThat(reduced.trades()).isEmpty();
+        assertThat(reduced.remainingOrder().quantity()).isEqualTo(40L);
+        assertThat(firstFill.trades()).singleElement()
+                .satisfies(trade -> assertThat(trade.makerOrder().orderId()).isEqualTo(firstId));
+        assertThat(orderBook.getSnapshot("AAPL").asks()).singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(130L));
+
+        // When: bajar el precio cruza con el bid de 149 y el resto queda a 149
+        OrderBook.MatchingResult repriced = orderBook.amendOrder("AAPL", firstId, 14900L, 40L);
+
+        // Then
+        assertThat(repriced.trades()).singleElement()
+                .satisfies(trade -> assertThat(trade.quantity()).isEqualTo(30L));
+        assertThat(repriced.remainingOrder()).isNull();
+        assertThat(orderBook.getSnapshot("AAPL").bids()).singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(20L));
+        assertThat(orderBook.amendOrder("AAPL", firstId, 15000L, 10L)).isNull();
     }
-}
\ No newline at end of file
+}
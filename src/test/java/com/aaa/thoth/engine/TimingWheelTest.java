@@ -0,0 +1,105 @@
+package com.aaa.thoth.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TimingWheel Tests")
+class TimingWheelTest {
+    private static final long START = 1_000_000L;
+
+    @Test
+    @DisplayName("Should fire timers across wheel levels never before their deadline")
+    void shouldFireAcrossLevels() {
+        // Given
+        TimingWheel wheel = new TimingWheel(10);
+        long[] delays = {5, 640, 41_000, 3_000_000, 900_000_000};
+        List<Long> fired = new ArrayList<>();
+        for (int i = 0; i < delays.length; i++) {
+            wheel.schedule(entry(i), START + delays[i], START);
+        }
+
+        // When / Then
+        for (int i = 0; i < delays.length; i++) {
+            long deadline = START + delays[i];
+            wheel.advance(deadline - 1, e -> fired.add(e.orderId));
+            assertThat(fired).hasSize(i);
+            // A lo sumo un tick de retraso
+            wheel.advance(deadline + 10, e -> fired.add(e.orderId));
+            assertThat(fired).hasSize(i + 1).last().isEqualTo((long) i);
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should cancel timers in constant time and mass-expire the rest")
+    void shouldCancelAndExpireAll() {
+        // Given
+        TimingWheel wheel = new TimingWheel(10);
+        OrderEntry cancelled = entry(1);
+        wheel.schedule(cancelled, START + 100, START);
+        wheel.schedule(entry(2), START + 100, START);
+        wheel.schedule(entry(3), START + 86_400_000, START);
+
+        // When
+        wheel.cancel(cancelled);
+        List<Long> fired = new ArrayList<>();
+        wheel.expireAll(e -> fired.add(e.orderId));
+
+        // Then
+        assertThat(fired).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(cancelled.timerSlot).isEqualTo(TimingWheel.UNSCHEDULED);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should report a lower bound of the next deadline across levels")
+    void shouldReportNextDue() {
+        // Given
+        TimingWheel wheel = new TimingWheel(10);
+        assertThat(wheel.nextDueMillis()).isEqualTo(Long.MAX_VALUE);
+        wheel.schedule(entry(1), START + 41_000, START);
+        wheel.schedule(entry(2), START + 3_000_000, START);
+
+        // When / Then: nunca después del plazo real
+        long due = wheel.nextDueMillis();
+        assertThat(due).isLessThanOrEqualTo(START + 41_000).isGreaterThan(START);
+        wheel.advance(START + 41_000, e -> {
+        });
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.nextDueMillis()).isLessThanOrEqualTo(START + 3_000_000).isGreaterThan(START + 41_000);
+
+        wheel.schedule(entry(3), START + 41_050, START + 41_000);
+        assertThat(wheel.nextDueMillis()).isEqualTo(START + 41_050);
+    }
+
+    @Test
+    @DisplayName("Should advance over a long idle gap without walking every tick")
+    void shouldJumpOverIdleGap() {
+        // Given: un plazo a 100 días, sin ticks intermedios (motor inactivo)
+        TimingWheel wheel = new TimingWheel(10);
+        long deadline = START + 100L * 86_400_000L;
+        wheel.schedule(entry(1), deadline, START);
+        List<Long> fired = new ArrayList<>();
+
+        // When: recorrer tick a tick serían ~864 millones de pasos
+        long started = System.nanoTime();
+        wheel.advance(deadline - 1, e -> fired.add(e.orderId));
+        wheel.advance(deadline + 10, e -> fired.add(e.orderId));
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        // Then
+        assertThat(fired).containsExactly(1L);
+        assertThat(elapsedMillis).isLessThan(100L);
+    }
+
+    private static OrderEntry entry(long orderId) {
+        OrderEntry entry = new OrderEntry();
+        entry.orderId = orderId;
+        return entry;
+    }
+}
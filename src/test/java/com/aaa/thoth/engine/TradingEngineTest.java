@@ -0,0 +1,546 @@
+package com.aaa.thoth.engine;
+
+import com.aaa.thoth.core.Order;
+import com.aaa.thoth.core.enums.OrderSide;
+import com.aaa.thoth.core.enums.OrderStatus;
+import com.aaa.thoth.core.enums.OrderType;
+import com.lmax.disruptor.dsl.ProducerType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TradingEngine Tests")
+class TradingEngineTest {
+
+    private TradingEngine engine;
+
+    @AfterEach
+    void tearDown() {
+        if (engine != null) {
+            engine.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should match independent symbols on separate shards")
+    void shouldMatchIndependentSymbolsOnSeparateShards() throws Exception {
+        // Given
+        engine = new TradingEngine(2);
+        engine.start();
+
+        // When
+        Order aaplSell = engine.submitOrder(
+                Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 100L, "TRADER1")).get(5, TimeUnit.SECONDS);
+        Order msftSell = engine.submitOrder(
+                Order.limitOrder("MSFT", OrderSide.SELL, 300.0, 100L, "TRADER1")).get(5, TimeUnit.SECONDS);
+        Order aaplBuy = engine.submitOrder(
+                Order.limitOrder("AAPL", OrderSide.BUY, 150.0, 40L, "TRADER2")).get(5, TimeUnit.SECONDS);
+        Order msftBuy = engine.submitOrder(
+                Order.limitOrder("MSFT", OrderSide.BUY, 300.0, 100L, "TRADER2")).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(aaplSell.orderId()).isPositive();
+        assertThat(msftSell.orderId()).isNotEqualTo(aaplSell.orderId());
+        assertThat(aaplBuy.status()).isEqualTo(OrderStatus.FILLED);
+        assertThat(msftBuy.status()).isEqualTo(OrderStatus.FILLED);
+        assertThat(engine.getOrderBookSnapshot("AAPL").asks())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(60L));
+        assertThat(engine.getOrderBookSnapshot("MSFT").asks()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject invalid orders before they reach the book")
+    void shouldNotMatchRejectedOrders() throws Exception {
+        // Given
+        engine = new TradingEngine(2);
+        engine.start();
+        engine.submitOrder(Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 100L, "TRADER1")).get(5, TimeUnit.SECONDS);
+
+        // When: supera la cantidad máxima por orden
+        Order oversized = engine.submitOrder(
+                Order.limitOrder("AAPL", OrderSide.BUY, 150.0, 2_000_000L, "TRADER2")).get(5, TimeUnit.SECONDS);
+        Order unknown = engine.submitOrder(
+                Order.limitOrder("NOT-LISTED", OrderSide.BUY, 150.0, 10L, "TRADER2")).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(oversized.status()).isEqualTo(OrderStatus.REJECTED);
+        assertThat(unknown.status()).isEqualTo(OrderStatus.REJECTED);
+        assertThat(engine.getOrderBookSnapshot("AAPL").asks())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(100L));
+    }
+
+    @Test
+    @DisplayName("Should stream execution reports to the trader session without futures")
+    void shouldStreamExecutionReportsToSessions() throws Exception {
+        // Given
+        engine = new TradingEngine(2);
+        List<String> reports = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        engine.registerSession("REPORTS1", (report, endOfBatch) -> {
+            reports.add(report.execType() + " " + report.leavesQuantity() + " " + report.lastQuantity());
+            done.countDown();
+        });
+        engine.start();
+
+        // When
+        engine.sendOrder(Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 100L, "REPORTS1"));
+        engine.sendOrder(Order.limitOrder("AAPL", OrderSide.BUY, 150.0, 40L, "OTHER1"));
+        engine.sendOrder(Order.limitOrder("AAPL", OrderSide.BUY, 150.0, 2_000_000L, "REPORTS1"));
+        engine.massCancel("REPORTS1", "AAPL", null).get(5, TimeUnit.SECONDS);
+
+        // Then: solo los reportes de la sesión, en orden
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(reports).containsExactly("NEW 100 0", "TRADE 60 40", "REJECTED 0 0", "CANCELLED 0 0");
+    }
+
+    @Test
+    @DisplayName("Should pass market orders through validation and fill them")
+    void shouldFillMarketOrders() throws Exception {
+        // Given
+        engine = new TradingEngine(2);
+        engine.start();
+        engine.submitOrder(Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 30L, "MKT1")).get(5, TimeUnit.SECONDS);
+
+        // When: sin precio, su valor no se compara con el mínimo por orden
+        Order market = engine.submitOrder(
+                Order.marketOrder("AAPL", OrderSide.BUY, 30L, "MKT2")).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(market.status()).isEqualTo(OrderStatus.FILLED);
+        assertThat(engine.getOrderBookSnapshot("AAPL").asks()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should publish matched trades to downstream consumers off the matcher")
+    void shouldPublishTradesToTradeRing() throws Exception {
+        // Given
+        engine = new TradingEngine(2);
+        List<String> received = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        engine.addTradeHandler((trade, sequence, endOfBatch) -> {
+            received.add(trade.symbol() + " " + trade.quantity() + "@" + trade.price() + " " + trade.takerSide());
+            done.countDown();
+        });
+        engine.start();
+        engine.submitOrder(Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 30L, "TRADER1")).get(5, TimeUnit.SECONDS);
+        engine.submitOrder(Order.limitOrder("AAPL", OrderSide.SELL, 151.0, 30L, "TRADER1")).get(5, TimeUnit.SECONDS);
+
+        // When
+        engine.submitOrder(Order.limitOrder("AAPL", OrderSide.BUY, 151.0, 60L, "TRADER2")).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).containsExactly("AAPL 30@15000 BUY", "AAPL 30@15100 BUY");
+        assertThatThrownBy(() -> engine.addTradeHandler((trade, sequence, endOfBatch) -> { }))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Should admit non-blocking submissions and expose ring capacity")
+    void shouldAdmitTrySubmitWithoutBlocking() throws Exception {
+        // Given
+        engine = new TradingEngine(EngineConfig.builder()
+                .ringSize(1024)
+                .admissionFillRatio(0.5)
+                .maxTraderShare(0.25)
+                .build());
+        CountDownLatch acked = new CountDownLatch(1);
+        engine.registerSession("ADMIT1", (report, endOfBatch) -> acked.countDown());
+        assertThat(engine.trySubmit(Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 10L, "ADMIT1")))
+                .isEqualTo(AdmissionResult.ENGINE_STOPPED);
+        engine.start();
+
+        // When
+        AdmissionResult result = engine.trySubmit(Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 10L, "ADMIT1"));
+
+        // Then
+        assertThat(result).isEqualTo(AdmissionResult.ACCEPTED);
+        assertThat(acked.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(engine.inFlightOrders("ADMIT1")).isZero();
+        assertThat(engine.remainingCapacity()).isPositive().isLessThanOrEqualTo(1024L);
+    }
+
+    @Test
+    @DisplayName("Should let gateways encode orders straight into the ring slot")
+    void shouldEncodeOrdersIntoRingSlots() throws Exception {
+        // Given: mensaje de red ya decodificado por el gateway
+        record WireOrder(String symbol, OrderSide side, long priceTicks, long quantity, String trader) {
+        }
+        TradingEngine.OrderEncoder<WireOrder> encoder = (event, wire) -> event.encodeOrder(
+                wire.symbol(), OrderType.LIMIT, wire.side(), wire.priceTicks(), 0L, wire.quantity(),
+                wire.quantity(), 0L, wire.trader(), "WIRE-" + wire.quantity(), 0L);
+        engine = new TradingEngine(2);
+        List<String> reports = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        engine.registerSession("WIRE1", (report, endOfBatch) -> {
+            reports.add(report.execType() + " " + report.clientOrderId());
+            done.countDown();
+        });
+        engine.start();
+
+        // When
+        long restingId = engine.sendOrder(encoder, new WireOrder("MSFT", OrderSide.SELL, 30000L, 70L, "WIRE1"));
+        engine.sendOrder(encoder, new WireOrder("MSFT", OrderSide.BUY, 30000L, 20L, "OTHER1"));
+
+        // Then
+        assertThat(restingId).isPositive();
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(reports).containsExactly("NEW WIRE-70", "TRADE WIRE-70");
+        assertThat(engine.getOrderBookSnapshot("MSFT").asks())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(50L));
+    }
+
+    @Test
+    @DisplayName("Should amend resting orders through the ring")
+    void shouldAmendRestingOrders() throws Exception {
+        // Given
+        engine = new TradingEngine(2);
+        engine.start();
+        Order sell = engine.submitOrder(
+                Order.limitOrder("GOOGL", OrderSide.SELL, 140.0, 100L, "TRADER1")).get(5, TimeUnit.SECONDS);
+
+        // When
+        Order reduced = engine.amendOrder("GOOGL", sell.orderId(), sell.price(), 60L).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(reduced.orderId()).isEqualTo(sell.orderId());
+        assertThat(reduced.quantity()).isEqualTo(60L);
+        assertThat(engine.getOrderBookSnapshot("GOOGL").asks())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(60L));
+        assertThatThrownBy(() -> engine.amendOrder("GOOGL", Long.MAX_VALUE, sell.price(), 10L)
+                .get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        // Un amend no puede saltear los límites de validación y riesgo
+        assertThatThrownBy(() -> engine.amendOrder("GOOGL", sell.orderId(), sell.price(), 2_000_000L)
+                .get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(engine.getOrderBookSnapshot("GOOGL").asks())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(60L));
+    }
+
+    @Test
+    @DisplayName("Should mass cancel a trader across shards in one command")
+    void shouldMassCancelTraderAcrossShards() throws Exception {
+        // Given
+        engine = new TradingEngine(2);
+        engine.start();
+        engine.submitOrder(Order.limitOrder("AAPL", OrderSide.BUY, 140.0, 100L, "KILL1")).get(5, TimeUnit.SECONDS);
+        engine.submitOrder(Order.limitOrder("MSFT", OrderSide.SELL, 310.0, 100L, "KILL1")).get(5, TimeUnit.SECONDS);
+        engine.submitOrder(Order.limitOrder("AAPL", OrderSide.BUY, 139.0, 100L, "KEEP1")).get(5, TimeUnit.SECONDS);
+
+        // When
+        int cancelled = engine.massCancel("KILL1", null, null).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(cancelled).isEqualTo(2);
+        assertThat(engine.getOrderBookSnapshot("AAPL").bids())
+                .singleElement()
+                .satisfies(level -> assertThat(level.price()).isEqualTo(13900L));
+        assertThat(engine.getOrderBookSnapshot("MSFT").asks()).isEmpty();
+        assertThat(engine.massCancel(null, "UNKNOWN-SYMBOL", OrderSide.BUY).get(5, TimeUnit.SECONDS)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should publish a batch in one claim and complete it in submission order")
+    void shouldSubmitOrdersInBatch() throws Exception {
+        // Given
+        engine = new TradingEngine(2);
+        engine.start();
+        List<Order> batch = List.of(
+                Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 100L, "TRADER1"),
+                Order.limitOrder("MSFT", OrderSide.SELL, 300.0, 50L, "TRADER1"),
+                Order.limitOrder("AAPL", OrderSide.BUY, 150.0, 100L, "TRADER2"));
+
+        // When
+        List<Order> results = engine.submitOrders(batch).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(results).extracting(Order::symbol).containsExactly("AAPL", "MSFT", "AAPL");
+        assertThat(results).extracting(Order::status)
+                .containsExactly(OrderStatus.NEW, OrderStatus.NEW, OrderStatus.FILLED);
+        assertThat(results).extracting(Order::orderId).doesNotHaveDuplicates();
+        assertThat(engine.getOrderBookSnapshot("AAPL").asks()).isEmpty();
+        assertThat(engine.submitOrders(List.of()).get(5, TimeUnit.SECONDS)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should submit a columnar batch without per-order objects at the gateway")
+    void shouldSubmitColumnarBatch() throws Exception {
+        // Given
+        engine = new TradingEngine(2);
+        engine.start();
+        OrderColumns columns = new OrderColumns(4);
+        columns.add("MSFT", OrderType.LIMIT, OrderSide.SELL, 30000L, 100L, "COLS1", "C-1");
+        columns.add("GOOGL", OrderType.LIMIT, OrderSide.SELL, 14000L, 50L, "COLS1", "C-2");
+        columns.add("MSFT", OrderType.LIMIT, OrderSide.BUY, 30000L, 100L, "COLS2", "C-3");
+
+        // When
+        List<Order> results = engine.submitOrders(columns).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(results).extracting(Order::clientOrderId).containsExactly("C-1", "C-2", "C-3");
+        assertThat(results).extracting(Order::status)
+                .containsExactly(OrderStatus.NEW, OrderStatus.NEW, OrderStatus.FILLED);
+        assertThat(engine.getOrderBookSnapshot("MSFT").asks()).isEmpty();
+
+        columns.clear();
+        assertThat(columns.size()).isZero();
+        assertThat(engine.submitOrders(columns).get(5, TimeUnit.SECONDS)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should run on a configured single-producer blocking pipeline with affinity hooks")
+    void shouldRunWithCustomEngineConfig() throws Exception {
+        // Given
+        Set<String> pinnedThreads = ConcurrentHashMap.newKeySet();
+        EngineConfig config = EngineConfig.builder()
+                .ringSize(1024)
+                .matchingShards(2)
+                .producerType(ProducerType.SINGLE)
+                .waitStrategy(EngineConfig.WaitStrategyType.BLOCKING)
+                .threadNamePrefix("custom-engine-")
+                .affinityHook((index, thread) -> pinnedThreads.add(index + " " + thread.getName()))
+                .build();
+        engine = new TradingEngine(config);
+        engine.start();
+
+        // When
+        engine.submitOrder(Order.limitOrder("AAPL", OrderSide.SELL, 150.0, 100L, "TRADER1")).get(5, TimeUnit.SECONDS);
+        Order buy = engine.submitOrder(
+                Order.limitOrder("AAPL", OrderSide.BUY, 150.0, 100L, "TRADER2")).get(5, TimeUnit.SECONDS);
+
+        // Then: reportes, tres consumidores de trades, validación, riesgo y un matcher por shard
+        assertThat(buy.status()).isEqualTo(OrderStatus.FILLED);
+        assertThat(pinnedThreads).hasSize(8).allSatisfy(name -> assertThat(name).contains("custom-engine-"));
+    }
+
+    @Test
+    @DisplayName("Should run auctions on the owning matcher and replay them from the journal")
+    void shouldRunAuctionThroughEngine(@TempDir Path journalDir) throws Exception {
+        // Given: subasta abierta, el libro queda cruzado sin ejecutar
+        EngineConfig config = EngineConfig.builder().matchingShards(2).journalDirectory(journalDir).build();
+        engine = new TradingEngine(config);
+        engine.start();
+        engine.startAuction("MSFT").get(5, TimeUnit.SECONDS);
+        Order buy = engine.submitOrder(
+                Order.limitOrder("MSFT", OrderSide.BUY, 301.0, 50L, "AUCT1")).get(5, TimeUnit.SECONDS);
+        Order sell = engine.submitOrder(
+                Order.limitOrder("MSFT", OrderSide.SELL, 299.0, 30L, "AUCT2")).get(5, TimeUnit.SECONDS);
+        assertThat(buy.status()).isEqualTo(OrderStatus.NEW);
+        assertThat(sell.status()).isEqualTo(OrderStatus.NEW);
+        assertThat(engine.getTradingPhase("MSFT")).isEqualTo(OrderBook.TradingPhase.AUCTION);
+
+        // When
+        OrderBook.AuctionResult result = engine.uncross("MSFT", 30100L).get(5, TimeUnit.SECONDS);
+        engine.startAuction("MSFT").get(5, TimeUnit.SECONDS);
+        engine.stop();
+        engine = new TradingEngine(config);
+
+        // Then: un solo precio de equilibrio, y el replay reproduce uncross y fase
+        assertThat(result).isEqualTo(new OrderBook.AuctionResult(30100L, 30L, 20L));
+        assertThat(engine.getTradingPhase("MSFT")).isEqualTo(OrderBook.TradingPhase.AUCTION);
+        assertThat(engine.getOrderBookSnapshot("MSFT").asks()).isEmpty();
+        assertThat(engine.getOrderBookSnapshot("MSFT").bids())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(20L));
+        assertThat(engine.getTradingPhase("GOOGL")).isEqualTo(OrderBook.TradingPhase.CONTINUOUS);
+    }
+
+    @Test
+    @DisplayName("Should rebuild the books by replaying the journal after a restart")
+    void shouldRecoverBooksFromJournal(@TempDir Path journalDir) throws Exception {
+        // Given: segmentos chicos para que el journal rote entre varios archivos
+        EngineConfig config = EngineConfig.builder()
+                .matchingShards(2)
+                .journalDirectory(journalDir)
+                .journalSegmentSize(4096)
+                .journalFlush(EngineConfig.JournalFlush.END_OF_BATCH)
+                .build();
+        engine = new TradingEngine(config);
+        engine.start();
+        List<Order> asks = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            asks.add(Order.limitOrder("GOOGL", OrderSide.SELL, 500.0 + i, 10L, "JOURNAL1"));
+        }
+        engine.submitOrders(asks).get(5, TimeUnit.SECONDS);
+        Order bid = engine.submitOrder(
+                Order.limitOrder("MSFT", OrderSide.BUY, 200.0, 100L, "JOURNAL2")).get(5, TimeUnit.SECONDS);
+        engine.submitOrder(Order.limitOrder("GOOGL", OrderSide.BUY, 500.0, 4L, "JOURNAL2")).get(5, TimeUnit.SECONDS);
+        engine.amendOrder("MSFT", bid.orderId(), bid.price(), 70L).get(5, TimeUnit.SECONDS);
+        engine.submitOrder(Order.limitOrder("MSFT", OrderSide.BUY, 199.0, 50L, "JOURNAL3")).get(5, TimeUnit.SECONDS);
+        engine.massCancel("JOURNAL3", null, null).get(5, TimeUnit.SECONDS);
+        OrderBook.BookSnapshot googlBefore = engine.getOrderBookSnapshot("GOOGL");
+        OrderBook.BookSnapshot msftBefore = engine.getOrderBookSnapshot("MSFT");
+        engine.stop();
+
+        // When
+        engine = new TradingEngine(config);
+        engine.start();
+
+        // Then
+        assertThat(journalDir.toFile().list()).hasSizeGreaterThan(1);
+        assertThat(engine.getOrderBookSnapshot("GOOGL").asks()).isEqualTo(googlBefore.asks());
+        assertThat(engine.getOrderBookSnapshot("GOOGL").asks().get(0).quantity()).isEqualTo(6L);
+        assertThat(engine.getOrderBookSnapshot("MSFT").bids())
+                .isEqualTo(msftBefore.bids())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(70L));
+        Order sell = engine.submitOrder(
+                Order.limitOrder("MSFT", OrderSide.SELL, 200.0, 70L, "JOURNAL3")).get(5, TimeUnit.SECONDS);
+        assertThat(sell.status()).isEqualTo(OrderStatus.FILLED);
+    }
+
+    @Test
+    @DisplayName("Should replay a GTD order that expired while the engine was down")
+    void shouldReplayExpiredGtdOrderDeterministically(@TempDir Path journalDir) throws Exception {
+        // Given: una GTD válida al entrar, ejecutada en parte antes de la caída
+        EngineConfig config = EngineConfig.builder().journalDirectory(journalDir).build();
+        engine = new TradingEngine(config);
+        engine.start();
+        Instant now = Instant.now();
+        Order gtd = new Order(0L, "MSFT", OrderType.LIMIT, OrderSide.SELL, 30000L, 0L, 100L, 0L, 100L, 0L,
+                "GTD1", OrderStatus.NEW, null, now, now, now.plusMillis(300), 0, "GTD-1");
+        engine.submitOrder(gtd).get(5, TimeUnit.SECONDS);
+        Order buy = engine.submitOrder(
+                Order.limitOrder("MSFT", OrderSide.BUY, 300.0, 40L, "GTD2")).get(5, TimeUnit.SECONDS);
+        engine.stop();
+        assertThat(buy.status()).isEqualTo(OrderStatus.FILLED);
+        Thread.sleep(400);
+
+        // When: el replay corre después del vencimiento
+        engine = new TradingEngine(config);
+
+        // Then: la validación usa la hora del evento, así que la ejecución se reproduce
+        assertThat(engine.getOrderBookSnapshot("MSFT").bids()).isEmpty();
+        assertThat(engine.getOrderBookSnapshot("MSFT").asks())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(60L));
+
+        // Y el timer del motor la vence al arrancar
+        engine.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!engine.getOrderBookSnapshot("MSFT").asks().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(engine.getOrderBookSnapshot("MSFT").asks()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should continue the trade ID series of the journal after a restart")
+    void shouldKeepTradeIdEpochAcrossRestarts(@TempDir Path journalDir) throws Exception {
+        // Given: un shard, así la serie de trade IDs es una sola
+        EngineConfig config = EngineConfig.builder().matchingShards(1).journalDirectory(journalDir).build();
+        List<Long> tradeIds = new ArrayList<>();
+        CountDownLatch first = new CountDownLatch(1);
+        engine = new TradingEngine(config);
+        engine.addTradeHandler((trade, sequence, endOfBatch) -> {
+            tradeIds.add(trade.tradeId());
+            first.countDown();
+        });
+        engine.start();
+        engine.submitOrder(Order.limitOrder("MSFT", OrderSide.SELL, 300.0, 100L, "EPOCH1")).get(5, TimeUnit.SECONDS);
+        engine.submitOrder(Order.limitOrder("MSFT", OrderSide.BUY, 300.0, 40L, "EPOCH2")).get(5, TimeUnit.SECONDS);
+        assertThat(first.await(5, TimeUnit.SECONDS)).isTrue();
+        engine.stop();
+        Thread.sleep(20);
+
+        // When: el replay regenera el primer trade y llega uno nuevo
+        CountDownLatch second = new CountDownLatch(1);
+        engine = new TradingEngine(config);
+        engine.addTradeHandler((trade, sequence, endOfBatch) -> {
+            tradeIds.add(trade.tradeId());
+            second.countDown();
+        });
+        engine.start();
+        engine.submitOrder(Order.limitOrder("MSFT", OrderSide.BUY, 300.0, 10L, "EPOCH2")).get(5, TimeUnit.SECONDS);
+
+        // Then: misma época que el primer arranque, el ID sigue la serie
+        assertThat(second.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(tradeIds).hasSize(2);
+        assertThat(tradeIds.get(1)).isEqualTo(tradeIds.get(0) + 1);
+    }
+
+    @Test
+    @DisplayName("Should keep orders whose encoding failed out of the journal")
+    void shouldNotJournalFailedEncodings(@TempDir Path journalDir) throws Exception {
+        // Given: el encoder escribe una orden válida y falla antes de terminar
+        EngineConfig config = EngineConfig.builder().matchingShards(1).journalDirectory(journalDir).build();
+        engine = new TradingEngine(config);
+        List<String> reports = new ArrayList<>();
+        CountDownLatch probed = new CountDownLatch(1);
+        engine.registerSession("ENC1", (report, endOfBatch) -> reports.add("ENC1 " + report.execType()));
+        engine.registerSession("ENC2", (report, endOfBatch) -> reports.add("ENC2 " + report.execType()));
+        engine.registerSession("ENC3", (report, endOfBatch) -> probed.countDown());
+        engine.start();
+        engine.submitOrder(Order.limitOrder("MSFT", OrderSide.SELL, 300.0, 100L, "ENC1")).get(5, TimeUnit.SECONDS);
+        TradingEngine.OrderEncoder<Long> failing = (event, quantity) -> {
+            event.encodeOrder("MSFT", OrderType.LIMIT, OrderSide.BUY, 30000L, 0L, quantity, quantity, 0L,
+                    "ENC2", "ENC-" + quantity, 0L);
+            throw new IllegalStateException("truncated message");
+        };
+
+        // When
+        assertThatThrownBy(() -> engine.sendOrder(failing, 40L)).isInstanceOf(IllegalStateException.class);
+        Order probe = engine.submitOrder(
+                Order.limitOrder("MSFT", OrderSide.BUY, 290.0, 1L, "ENC3")).get(5, TimeUnit.SECONDS);
+        assertThat(probed.await(5, TimeUnit.SECONDS)).isTrue();
+        engine.stop();
+        engine = new TradingEngine(config);
+
+        // Then: ni en vivo ni en el replay la orden a medio codificar toca el libro, y
+        // ninguna sesión recibe un rechazo por ella (el único shard reporta en orden)
+        assertThat(probe.status()).isEqualTo(OrderStatus.NEW);
+        assertThat(reports).containsExactly("ENC1 NEW");
+        assertThat(engine.getOrderBookSnapshot("MSFT").asks())
+                .singleElement()
+                .satisfies(level -> assertThat(level.quantity()).isEqualTo(100L));
+    }
+
+    @Test
+    @DisplayName("Should not journal expiry ticks while nothing is due")
+    void shouldSkipIdleExpiryTicks(@TempDir Path journalDir) throws Exception {
+        // Given
+        EngineConfig config = EngineConfig.builder().journalDirectory(journalDir).build();
+        engine = new TradingEngine(config);
+        engine.start();
+        engine.submitOrder(Order.limitOrder("MSFT", OrderSide.SELL, 300.0, 100L, "IDLE1")).get(5, TimeUnit.SECONDS);
+
+        // When: el timer corre unas decenas de ticks sin órdenes con vencimiento
+        Thread.sleep(200);
+        engine.expireOrders();
+        engine.stop();
+
+        // Then: solo la orden quedó en el journal
+        EventJournal journal = new EventJournal(journalDir, config.journalSegmentSize(), config.journalFlush());
+        assertThat(journal.recover(System.currentTimeMillis())).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should reject invalid engine configurations")
+    void shouldRejectInvalidEngineConfig() {
+        assertThatThrownBy(() -> EngineConfig.builder().ringSize(1000))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> EngineConfig.builder()
+                .threadKind(EngineConfig.ThreadKind.VIRTUAL)
+                .waitStrategy(EngineConfig.WaitStrategyType.BUSY_SPIN)
+                .build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}